@@ -0,0 +1,60 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import crush.CorrelatedMode;
+import crush.CorrelatedSignal;
+
+/**
+ * Measures the update of the correlated signal of all observing channels, using either the maximum-likelihood 
+ * or the robust (median) estimate.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class CorrelatedSignalBenchmark extends IntegrationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean robust;
+
+    private CorrelatedSignal signal;
+
+    @Setup(Level.Iteration)
+    public void setupSignal() {
+        CorrelatedMode mode = (CorrelatedMode) integration.getInstrument().modalities.get("obs-channels").get(0);
+        signal = new CorrelatedSignal(mode, integration);
+    }
+
+    @Benchmark
+    public void update() throws Exception {
+        signal.update(robust);
+    }
+
+}
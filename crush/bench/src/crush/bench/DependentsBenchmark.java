@@ -0,0 +1,67 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import crush.Dependents;
+
+/**
+ * Measures the clearing and applying of the frame and channel dependents (degrees-of-freedom bookkeeping) of a 
+ * modeled parameter set, for all frames and channels of an integration.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class DependentsBenchmark extends IntegrationBenchmark {
+
+    private Dependents dependents;
+
+    @Setup(Level.Iteration)
+    public void setupDependents() {
+        dependents = new Dependents(integration, "benchmark");
+
+        float[] dp = new float[Math.max(frames, channels)];
+        Arrays.fill(dp, 1e-4F);
+
+        dependents.addForFrames(dp);
+        dependents.addForChannels(dp);
+    }
+
+    @Benchmark
+    public void apply() {
+        dependents.apply(integration.getInstrument(), 0, integration.size());
+    }
+
+    @Benchmark
+    public void clear() {
+        dependents.clear(integration.getInstrument(), 0, integration.size());
+    }
+
+}
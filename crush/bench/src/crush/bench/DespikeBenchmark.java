@@ -0,0 +1,52 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures the despiking methods of {@link crush.Integration} on simulated data with sparse spikes.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class DespikeBenchmark extends IntegrationBenchmark {
+
+    public static final double LEVEL = 10.0;
+
+    @Param({"absolute", "neighbours", "gradual", "multires"})
+    public String method;
+
+    @Benchmark
+    public void despike() {
+        if(method.equals("absolute")) integration.despikeAbsolute(LEVEL);
+        else if(method.equals("neighbours")) integration.despikeNeighbouring(LEVEL, 1);
+        else if(method.equals("gradual")) integration.despikeGradual(LEVEL, 0.1);
+        else if(method.equals("multires")) integration.despikeMultires(LEVEL);
+        else throw new IllegalArgumentException("Unknown despiking method: " + method);
+    }
+
+}
@@ -0,0 +1,56 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import crush.filters.KillFilter;
+
+/**
+ * Measures the application of an FFT filter (a {@link KillFilter} rejecting a narrow band) to all channels of an 
+ * integration.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class FilterBenchmark extends IntegrationBenchmark {
+
+    private KillFilter filter;
+
+    @Setup(Level.Iteration)
+    public void setupFilter() {
+        integration.getInstrument().setOption("filter.kill", "");
+        integration.getInstrument().setOption("filter.kill.bands", "0.9:1.1");
+        filter = new KillFilter(integration);
+    }
+
+    @Benchmark
+    public boolean apply() {
+        return filter.apply(false);
+    }
+
+}
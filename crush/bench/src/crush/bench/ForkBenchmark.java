@@ -0,0 +1,100 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import crush.CRUSH;
+import jnum.parallel.ParallelTask;
+
+/**
+ * Measures the overhead of dispatching a {@link CRUSH.Fork} on the CRUSH executor, both with no work at all, and 
+ * with a light-weight reduction with per-thread partial results.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class ForkBenchmark extends ParallelBenchmark {
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private float[] data;
+
+    @Setup(Level.Trial)
+    public void setupData() {
+        Random random = new Random(IntegrationBenchmark.SEED);
+        data = new float[size];
+        for(int i=size; --i >= 0; ) data[i] = (float) random.nextGaussian();
+    }
+
+    @Benchmark
+    public void dispatch() {
+        new CRUSH.Fork<Void>(size, threads) {
+            @Override
+            protected void processIndex(int index) {}
+        }.process();
+    }
+
+    @Benchmark
+    public double sum() {
+        class Summation extends CRUSH.Fork<Double> {
+            private double sum;
+
+            Summation() { super(size, threads); }
+
+            @Override
+            protected void init() {
+                super.init();
+                sum = 0.0;
+            }
+
+            @Override
+            protected void processIndex(int index) {
+                sum += data[index];
+            }
+
+            @Override
+            public Double getLocalResult() { return sum; }
+
+            @Override
+            public Double getResult() {
+                double total = 0.0;
+                for(ParallelTask<Double> task : getWorkers()) total += task.getLocalResult();
+                return total;
+            }
+        }
+
+        Summation summation = new Summation();
+        summation.process();
+        return summation.getResult();
+    }
+
+}
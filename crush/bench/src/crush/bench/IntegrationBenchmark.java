@@ -0,0 +1,56 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Base of benchmarks that operate on a {@link SyntheticIntegration}. The simulated data are regenerated (from the same
+ * random seed) before every measurement iteration, so that reduction steps, which modify the data in place, are
+ * always measured on comparable inputs.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public abstract class IntegrationBenchmark extends ParallelBenchmark {
+
+    public static final long SEED = 20200101L;
+
+    @Param({"128"})
+    public int channels;
+
+    @Param({"16384"})
+    public int frames;
+
+    protected SyntheticIntegration integration;
+
+    @Setup(Level.Iteration)
+    public void setupIntegration() {
+        integration = SyntheticScan.createIntegration(channels, frames, SEED);
+    }
+
+}
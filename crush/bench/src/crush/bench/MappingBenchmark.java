@@ -0,0 +1,74 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import java.util.Collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import crush.sourcemodel.IntensityMap;
+import jnum.Unit;
+
+/**
+ * Measures the mapping of a scanning {@link SyntheticIntegration} onto an {@link IntensityMap}, i.e. 
+ * {@link crush.sourcemodel.AbstractSource2D#add(crush.Integration)}, with the pixel positions projected on the fly
+ * for every frame, or looked up from a precalculated index (as with the <code>indexing</code> option).
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class MappingBenchmark extends IntegrationBenchmark {
+
+    public static final double SCAN_AMPLITUDE = 60.0 * Unit.arcsec;
+
+    public static final double SCAN_PERIOD = 10.0 * Unit.s;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private IntensityMap map;
+
+    // JMH runs the setup of the superclass first, so the integration is already created by the time this is called.
+    @Setup(Level.Iteration)
+    public void setupMap() throws Exception {
+        integration.setThreadCount(threads);
+        integration.scanLissajous(SCAN_AMPLITUDE, SCAN_PERIOD);
+
+        map = new IntensityMap(integration.getInstrument());
+        map.createFrom(Collections.singletonList(integration.getScan()));
+
+        if(indexed) map.createLookup(integration);
+    }
+
+    @Benchmark
+    public IntensityMap add() {
+        map.add(integration);
+        return map;
+    }
+
+}
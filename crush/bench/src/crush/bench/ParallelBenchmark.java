@@ -0,0 +1,89 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crush.CRUSH;
+import crush.Instrument;
+import crush.Integration;
+
+/**
+ * Common base of the CRUSH benchmarks, which sets up the CRUSH executor and recyclers for the requested number of
+ * threads, the same way as {@link CRUSH} does at runtime. All benchmarks report throughput. Run with the JMH 
+ * <code>-prof gc</code> option (as the <code>bench</code> Ant target does) to report the allocation rates also.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class ParallelBenchmark {
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setupExecutor() {
+        CRUSH.maxThreads = threads;
+
+        Instrument.setRecyclerCapacity((threads + 1) << 2);
+        Integration.setRecyclerCapacity((threads + 1) << 2);
+
+        executor = Executors.newFixedThreadPool(threads);
+        CRUSH.executor = executor;
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownExecutor() {
+        CRUSH.executor = null;
+        executor.shutdown();
+
+        Instrument.clearRecycler();
+        Integration.clearRecycler();
+    }
+
+}
@@ -0,0 +1,68 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import crush.Recycler;
+
+/**
+ * Compares obtaining temporary arrays from a {@link Recycler} against allocating new ones each time. The allocation
+ * rates (with <code>-prof gc</code>) show how much garbage the recycler avoids.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class RecyclerBenchmark extends ParallelBenchmark {
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private Recycler recycler;
+
+    @Setup(Level.Trial)
+    public void setupRecycler() {
+        recycler = new Recycler((threads + 1) << 2);
+    }
+
+    @Benchmark
+    public float recycled() {
+        float[] array = recycler.getFloatArray(size);
+        array[0] = 1.0F;
+        recycler.recycle(array);
+        return array[0];
+    }
+
+    @Benchmark
+    public float allocated() {
+        float[] array = new float[size];
+        array[0] = 1.0F;
+        return array[0];
+    }
+
+}
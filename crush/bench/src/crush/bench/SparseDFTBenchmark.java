@@ -0,0 +1,113 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crush.filters.SparseDFT;
+import jnum.fft.FloatFFT;
+
+/**
+ * Compares removing a number of frequency bins from a single timestream via the sparse DFT, against FFT filtering
+ * (forward and backward transform) of the same length. The number of bins at which the two have the same throughput
+ * is the crossover that {@link SparseDFT#isPreferred(int, int, int)} aims to predict, and can be used to calibrate
+ * {@link SparseDFT#OPS_PER_SAMPLE_PER_BIN}.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SparseDFTBenchmark {
+
+    @Param({"4096", "65536"})
+    public int size;
+
+    @Param({"1", "4", "16", "64"})
+    public int bins;
+
+    private float[] data, buffer;
+    private int[] rejectBins;
+    private FloatFFT fft;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(IntegrationBenchmark.SEED);
+
+        data = new float[size];
+        for(int i=size; --i >= 0; ) data[i] = (float) random.nextGaussian();
+
+        buffer = new float[size];
+
+        // Spread the rejected bins evenly, avoiding DC and Nyquist...
+        rejectBins = new int[bins];
+        final int step = (size >>> 1) / (bins + 1);
+        for(int i=bins; --i >= 0; ) rejectBins[i] = (i + 1) * step;
+
+        fft = new FloatFFT();
+        fft.setParallel(1);
+    }
+
+    @Benchmark
+    public float[] sparse() {
+        Arrays.fill(buffer, 0.0F);
+        SparseDFT.getRejected(data, 0, size, size, rejectBins, null, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public float[] fft() {
+        System.arraycopy(data, 0, buffer, 0, size);
+
+        fft.real2Amplitude(buffer);
+        for(int bin : rejectBins) {
+            buffer[bin << 1] = 0.0F;
+            buffer[(bin << 1) + 1] = 0.0F;
+        }
+        fft.amplitude2Real(buffer);
+
+        return buffer;
+    }
+
+}
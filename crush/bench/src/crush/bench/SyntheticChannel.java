@@ -0,0 +1,46 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import crush.Channel;
+import crush.Instrument;
+
+/**
+ * A plain detector channel, with the default gains and weights, for use by {@link SyntheticInstrument}.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class SyntheticChannel extends Channel {
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 3407260361856823941L;
+
+    public SyntheticChannel(Instrument<?> instrument, int fixedIndex) {
+        super(instrument, fixedIndex);
+    }
+
+}
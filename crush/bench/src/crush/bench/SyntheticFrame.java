@@ -0,0 +1,93 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import crush.Frame;
+import jnum.math.Coordinate2D;
+import jnum.math.Vector2D;
+import jnum.projection.Projector2D;
+
+/**
+ * A frame of simulated data. The pointing of synthetic frames is a flat offset from the tracking center, which is
+ * zero unless the integration was set scanning (see {@link SyntheticIntegration#scanLissajous(double, double)}).
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class SyntheticFrame extends Frame {
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -6790329155230497373L;
+
+    Vector2D scanOffset = new Vector2D();
+
+    public SyntheticFrame(SyntheticIntegration parent) {
+        super(parent);
+    }
+
+    @Override
+    public SyntheticFrame copy(boolean withContents) {
+        SyntheticFrame copy = (SyntheticFrame) super.copy(withContents);
+        if(scanOffset != null) copy.scanOffset = scanOffset.copy();
+        return copy;
+    }
+
+    @Override
+    protected void create(int size) {
+        super.create(size);
+    }
+
+    @Override
+    public Coordinate2D getNativeCoords() {
+        return null;
+    }
+
+    @Override
+    public Vector2D getNativeOffset() {
+        return scanOffset.copy();
+    }
+
+    @Override
+    public void getNativeOffset(final Vector2D offset) {
+        offset.copy(scanOffset);
+    }
+
+    @Override
+    public void project(final Vector2D fpOffset, final Projector2D<?> projector) {
+        if(projector == null) return;
+        super.project(fpOffset, projector);
+        projector.getOffset().add(scanOffset);
+    }
+
+    @Override
+    public void pointingAt(Vector2D offset) {}
+
+    @Override
+    public Vector2D getPosition(final int type) {
+        return new Vector2D();
+    }
+
+}
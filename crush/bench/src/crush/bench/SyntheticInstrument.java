@@ -0,0 +1,93 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import crush.Channel;
+import crush.PixelLayout;
+import crush.Scan;
+import crush.instrument.GenericInstrument;
+import jnum.Configurator;
+import jnum.LockedException;
+import jnum.Unit;
+
+/**
+ * A minimal instrument with a fixed number of identical channels, laid out on a square array (see 
+ * {@link SyntheticLayout}), and the standard channel groups, divisions and correlated modalities, which is all that
+ * the time-stream reduction steps and the source mapping need to operate on synthetic data.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class SyntheticInstrument extends GenericInstrument {
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -1851378106434227467L;
+
+    public static final double DEFAULT_SAMPLING_INTERVAL = 0.01 * Unit.s;
+
+    public static final double DEFAULT_RESOLUTION = 10.0 * Unit.arcsec;
+
+    public SyntheticInstrument(int channels) {
+        super("synthetic", channels);
+        setTelescopeName("synthetic");
+        setOptions(new Configurator());
+        samplingInterval = DEFAULT_SAMPLING_INTERVAL;
+        setResolution(DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Adds the specified number of channels to this instrument, and creates their pixel layout, and the default 
+     * channel groups, divisions and modalities for them.
+     * 
+     * @param channels      the number of channels to create.
+     */
+    public void populate(int channels) {
+        for(int c=0; c < channels; c++) add(getChannelInstance(c + 1));
+        createLayout().validate();
+        createEnsembles();
+    }
+
+    public void setOption(String key, String value) {
+        try { getOptions().process(key, value); }
+        catch(LockedException e) {}
+    }
+
+    @Override
+    public Channel getChannelInstance(int backendIndex) {
+        return new SyntheticChannel(this, backendIndex);
+    }
+
+    @Override
+    protected PixelLayout getLayoutInstance() {
+        return new SyntheticLayout(this);
+    }
+
+    @Override
+    public Scan<?> getScanInstance() {
+        return new SyntheticScan(this);
+    }
+
+}
@@ -0,0 +1,111 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import java.util.Random;
+
+import crush.Integration;
+
+/**
+ * An integration of simulated data, consisting of a random-walk correlated signal common to all channels, white noise,
+ * and sparse spikes. The data are reproducible for a given random seed.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class SyntheticIntegration extends Integration<SyntheticFrame> {
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 2120468005779001384L;
+
+    public static final double SPIKE_PROBABILITY = 1e-4;
+
+    public static final double SPIKE_AMPLITUDE = 100.0;
+
+    public SyntheticIntegration(SyntheticScan parent) {
+        super(parent);
+    }
+
+    @Override
+    public SyntheticFrame getFrameInstance() {
+        return new SyntheticFrame(this);
+    }
+
+    @Override
+    public SyntheticInstrument getInstrument() { return (SyntheticInstrument) super.getInstrument(); }
+
+    /**
+     * Discards any prior frames, and fills this integration with the specified number of simulated frames.
+     * 
+     * @param frames    the number of frames to create.
+     * @param seed      the random seed for the simulation.
+     */
+    public void fill(int frames, long seed) {
+        clear();
+        ensureCapacity(frames);
+
+        final Random random = new Random(seed);
+        final int channels = getInstrument().size();
+
+        double common = 0.0;
+
+        for(int t=0; t < frames; t++) {
+            common += 0.1 * random.nextGaussian();
+
+            final SyntheticFrame exposure = getFrameInstance();
+            exposure.create(channels);
+
+            for(int c=channels; --c >= 0; ) {
+                double value = common + random.nextGaussian();
+                if(random.nextDouble() < SPIKE_PROBABILITY) value += SPIKE_AMPLITUDE;
+                exposure.data[c] = (float) value;
+            }
+
+            add(exposure);
+        }
+    }
+
+    /**
+     * Sets the frames of this integration scanning a Lissajous pattern around the tracking center, with incommensurate
+     * periods in x and y so that the pattern fills a square of twice the amplitude.
+     * 
+     * @param amplitude     the scanning amplitude in both x and y, e.g. <code>60.0 * Unit.arcsec</code>.
+     * @param period        the period of the scanning in x, e.g. <code>10.0 * Unit.s</code>. The period in y is longer
+     *                      by the golden ratio.
+     */
+    public void scanLissajous(double amplitude, double period) {
+        final double w = 2.0 * Math.PI * getInstrument().samplingInterval / period;
+
+        for(int t=size(); --t >= 0; ) {
+            final SyntheticFrame exposure = get(t);
+            if(exposure == null) continue;
+            exposure.scanOffset.set(amplitude * Math.sin(w * t), amplitude * Math.sin(w * t / GOLDEN_RATIO));
+        }
+    }
+
+    private static final double GOLDEN_RATIO = 0.5 * (1.0 + Math.sqrt(5.0));
+
+}
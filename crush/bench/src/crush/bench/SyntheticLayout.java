@@ -0,0 +1,65 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import crush.Channel;
+import crush.instrument.SingleEndedLayout;
+import jnum.Unit;
+import jnum.math.Vector2D;
+
+/**
+ * A square array layout for {@link SyntheticInstrument}, with one pixel per channel, filled row by row and centered
+ * on the pointing center.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class SyntheticLayout extends SingleEndedLayout {
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 5047128163270593312L;
+
+    public static final double DEFAULT_PIXEL_SIZE = 5.0 * Unit.arcsec;
+
+    public SyntheticLayout(SyntheticInstrument instrument) {
+        super(instrument);
+    }
+
+    @Override
+    public void setDefaultPixelPositions() {
+        final int cols = (int) Math.ceil(Math.sqrt(getInstrument().size()));
+        final double center = 0.5 * (cols - 1);
+
+        for(Channel channel : getInstrument()) {
+            final int i = channel.getIndex();
+            channel.getPixel().setPosition(new Vector2D(
+                    (i % cols - center) * DEFAULT_PIXEL_SIZE, 
+                    (i / cols - center) * DEFAULT_PIXEL_SIZE
+            ));
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.bench;
+
+import crush.Scan;
+import jnum.math.Coordinate2D;
+import jnum.math.Vector2D;
+
+/**
+ * A scan container for synthetic integrations. It cannot be read from files, but it can create an integration 
+ * filled with reproducible simulated data via {@link #createIntegration(int, int, long)}.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class SyntheticScan extends Scan<SyntheticIntegration> {
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -4511838406186062651L;
+
+    public SyntheticScan(SyntheticInstrument instrument) {
+        super(instrument);
+    }
+
+    @Override
+    public void read(String descriptor, boolean readFully) throws Exception {
+        throw new UnsupportedOperationException("Synthetic scans cannot be read.");
+    }
+
+    @Override
+    public SyntheticIntegration getIntegrationInstance() {
+        return new SyntheticIntegration(this);
+    }
+
+    /**
+     * Synthetic scans track the origin of a flat coordinate system, relative to which the frames are pointed.
+     */
+    @Override
+    public Coordinate2D getNativeCoordinates() {
+        return new Vector2D();
+    }
+
+    /**
+     * Creates a new synthetic integration, with its own synthetic instrument and parent scan.
+     * 
+     * @param channels      the number of detector channels.
+     * @param frames        the number of frames (time samples) in the integration.
+     * @param seed          the random seed for generating the simulated data.
+     * @return              a new integration filled with simulated data.
+     */
+    public static SyntheticIntegration createIntegration(int channels, int frames, long seed) {
+        SyntheticInstrument instrument = new SyntheticInstrument(channels);
+        instrument.populate(channels);
+
+        SyntheticScan scan = new SyntheticScan(instrument);
+        SyntheticIntegration integration = scan.getIntegrationInstance();
+        integration.fill(frames, seed);
+        scan.add(integration);
+
+        return integration;
+    }
+
+}
@@ -0,0 +1,234 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.instrument.hawcplus;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crush.bench.IntegrationBenchmark;
+import crush.fits.TableRow;
+import crush.telescope.sofia.SofiaTelescopeData;
+import jnum.Configurator;
+import jnum.Unit;
+import jnum.astro.CoordinateEpoch;
+import jnum.astro.EquatorialCoordinates;
+import jnum.astro.GeodeticCoordinates;
+import jnum.astro.HorizontalCoordinates;
+import jnum.astro.JulianEpoch;
+import jnum.astro.Precession;
+import jnum.math.Vector2D;
+import nom.tam.fits.BinaryTable;
+import nom.tam.fits.BinaryTableHDU;
+import nom.tam.fits.Fits;
+
+/**
+ * Measures the per-frame cost of parsing HAWC+ pixel data from a table row, of parsing a full row with telescope
+ * data into a previously parsed frame, and of validating a parsed frame with telescope data (incl. the chopper 
+ * offset). Run with <code>-prof gc</code> (the default of <code>ant bench</code>), the normalized allocation rate 
+ * (<code>gc.alloc.rate.norm</code>) shows the bytes allocated per frame. Parsing a row into a previously parsed frame
+ * must not allocate: the trial setup checks this, and fails the benchmark if the thread allocates more than 
+ * {@link #MAX_PARSE_BYTES} per row. It lives in the HAWC+ package, since frames, the row parser, and the fields it 
+ * sets, are package-private.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HawcFrameBenchmark {
+
+    private static final int iDAC = 0, iJump = 1;
+
+    // The table columns, starting with the pixel data (at iDAC and iJump), followed by the scalar columns...
+    private static final String[] COLUMNS = { 
+            "SQ1Feedback", "FluxJumps", "Timestamp", "FrameCounter", "hwpCounts", "Flag", "AZ", "EL", "RA", "DEC", 
+            "LST", "SIBS_VPA", "TABS_VPA", "Chop_VPA", "LON", "LAT", "sofiaChopR", "sofiaChopS", "PWV", "LOS", "ROLL"
+    };
+
+    // The largest average number of bytes that parsing a row into a previously parsed frame may allocate...
+    public static final double MAX_PARSE_BYTES = 16.0;
+
+    private static final int ALLOCATION_CHECK_ROWS = 100000;
+
+    private HawcIntegration integration;
+    private TableRow row;
+    private HawcIntegration.HawcPlusRowParser.Context context;
+    
+    private HawcFrame parsed, frame;
+    private EquatorialCoordinates equatorial;
+    private HorizontalCoordinates horizontal;
+    private Vector2D horizontalOffset;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Hawc hawc = new Hawc();
+        hawc.setOptions(new Configurator());
+        for(int c=0; c < Hawc.pixels; c++) hawc.add(new HawcPixel(hawc, c));
+        hawc.subarrayGainRenorm = new float[Hawc.subarrays];
+        Arrays.fill(hawc.subarrayGainRenorm, 1.0F);
+
+        HawcScan scan = new HawcScan(hawc);
+        scan.telescope = new SofiaTelescopeData();
+        scan.toApparent = new Precession(CoordinateEpoch.J2000, JulianEpoch.forMJD(58000.0));
+        
+        integration = new HawcIntegration(scan);
+        
+        // Simulated scalar columns, for an observation at a typical flight position...
+        final double[] values = new double[COLUMNS.length];
+        values[2] = 1.5e9;                                      // Timestamp (s)
+        values[5] = HawcFrame.FITS_FLAG_NORMAL_OBSERVING;       // Flag
+        values[6] = 45.0; values[7] = 40.0;                     // AZ, EL (deg)
+        values[8] = 12.0; values[9] = 30.0;                     // RA (h), DEC (deg)
+        values[10] = 6.0;                                       // LST (h)
+        values[11] = 30.0;                                      // SIBS_VPA (deg)
+        values[12] = 20.0;                                      // TABS_VPA (deg)
+        values[13] = 25.0;                                      // Chop_VPA (deg)
+        values[14] = -120.0; values[15] = 37.0;                 // LON, LAT (deg)
+        values[16] = 0.01;                                      // sofiaChopR (V)
+        values[18] = 10.0;                                      // PWV (um)
+        
+        // Simulated SQ1 feedback and jump counter columns, in the FITS storage layout...
+        final Random random = new Random(IntegrationBenchmark.SEED);
+        final int[] DAC = new int[HawcFrame.FITS_CHANNELS];
+        final short[] jump = new short[HawcFrame.FITS_CHANNELS];
+        for(int k=DAC.length; --k >= 0; ) DAC[k] = random.nextInt(1 << 20);
+        
+        row = new TableRow() {
+            @Override
+            public byte getByte(int col, int i) { return (byte) getInt(col, i); }
+
+            @Override
+            public short getShort(int col, int i) { return (short) getInt(col, i); }
+
+            @Override
+            public int getInt(int col, int i) { return col == iJump ? jump[i] : col == iDAC ? DAC[i] : (int) values[col]; }
+
+            @Override
+            public long getLong(int col, int i) { return getInt(col, i); }
+
+            @Override
+            public float getFloat(int col, int i) { return (float) getDouble(col, i); }
+
+            @Override
+            public double getDouble(int col, int i) { return col > iJump ? values[col] : getInt(col, i); }
+        };
+        
+        // The parser locates the columns by name, so give it a (single row) table with the same columns...
+        final Object[] columns = new Object[COLUMNS.length];
+        for(int col=columns.length; --col >= 0; ) columns[col] = new double[1];
+        final BinaryTableHDU hdu = (BinaryTableHDU) Fits.makeHDU(new BinaryTable(columns));
+        for(int col=columns.length; --col >= 0; ) hdu.setColumnName(col, COLUMNS[col], null);
+        
+        context = integration.new HawcPlusRowParser(hdu).getContext();
+        parsed = context.parse(0, row);
+        
+        checkParseAllocation();
+        
+        // A frame with telescope data, as the row parser would leave it, for validating...
+        equatorial = new EquatorialCoordinates(12.0 * Unit.hourAngle, 30.0 * Unit.deg, CoordinateEpoch.J2000);
+        horizontal = new HorizontalCoordinates(45.0 * Unit.deg, 40.0 * Unit.deg);
+        horizontalOffset = new Vector2D(10.0 * Unit.arcsec, -5.0 * Unit.arcsec);
+        
+        frame = parse();
+        frame.isComplete = true;
+        frame.status = HawcFrame.FITS_FLAG_NORMAL_OBSERVING;
+        frame.site = new GeodeticCoordinates(-120.0 * Unit.deg, 37.0 * Unit.deg);
+        frame.LST = 6.0 * Unit.hour;
+        frame.equatorial = equatorial.copy();
+        frame.horizontal = horizontal.copy();
+        frame.horizontalOffset = horizontalOffset.copy();
+        frame.instrumentVPA = 30.0 * Unit.deg;
+        frame.telescopeVPA = 20.0 * Unit.deg;
+        frame.chopVPA = 25.0 * Unit.deg;
+        frame.setRotation(frame.instrumentVPA - frame.telescopeVPA);
+        frame.setParallacticAngle(frame.telescopeVPA);
+        frame.chopperPosition.set(60.0 * Unit.arcsec, 0.0);
+    }
+
+    @Benchmark
+    public HawcFrame parse() {
+        final HawcFrame frame = integration.getFrameInstance();
+        frame.parseData(row, iDAC, iJump, HawcFrame.FITS_COLS);
+        return frame;
+    }
+
+    /**
+     * Checks that parsing a row into a previously parsed frame does not allocate, after the parsing is compiled. The
+     * allocations are counted by the JVM for the benchmark thread, which is more robust than relying on the
+     * <code>gc</code> profiler, which reports the allocation rate but cannot fail the benchmark.
+     * 
+     * @throws IllegalStateException    if parsing allocates more than {@link #MAX_PARSE_BYTES} per row on average.
+     */
+    private void checkParseAllocation() throws IllegalStateException {
+        final com.sun.management.ThreadMXBean threads = 
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long id = Thread.currentThread().getId();
+        
+        // Warm up, so that the measured parsing is compiled...
+        for(int i=ALLOCATION_CHECK_ROWS; --i >= 0; ) parseRow();
+        
+        final long start = threads.getThreadAllocatedBytes(id);
+        for(int i=ALLOCATION_CHECK_ROWS; --i >= 0; ) parseRow();
+        final double bytes = (double) (threads.getThreadAllocatedBytes(id) - start) / ALLOCATION_CHECK_ROWS;
+        
+        if(bytes > MAX_PARSE_BYTES) 
+            throw new IllegalStateException("Parsing a HAWC+ row allocates " + bytes + " bytes per frame.");
+    }
+
+    @Benchmark
+    public HawcFrame parseRow() {
+        context.parseRow(parsed, row);
+        return parsed;
+    }
+
+    @Benchmark
+    public boolean validate() {
+        // Validation adds the chopper offset to the coordinates, so restore them for every frame... 
+        frame.equatorial.copy(equatorial);
+        frame.horizontal.copy(horizontal);
+        frame.horizontalOffset.copy(horizontalOffset);
+        frame.invalidate();
+        return frame.validate();
+    }
+
+}
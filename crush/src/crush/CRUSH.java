@@ -24,10 +24,14 @@
 package crush;
 
 import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 import java.net.*;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -70,6 +74,14 @@ public class CRUSH extends Configurator implements BasicMessaging {
     
     public static int maxThreads = 1;
     public static volatile ExecutorService executor;
+    public static volatile ProductWriter writer;
+    
+    public static volatile boolean forceGC = false;
+    public static volatile double gcHeadroom = 0.1;
+    
+    private static final AtomicInteger performedGCs = new AtomicInteger();
+    private static final AtomicInteger skippedGCs = new AtomicInteger();
+    private static final AtomicLong gcNanos = new AtomicLong();
     
     
     public Instrument<?> instrument;
@@ -326,7 +338,7 @@ public class CRUSH extends Configurator implements BasicMessaging {
         for(Scan<?> scan : scans) instrument.getOptions().intersect(scan.getOptions()); 		
         for(int i=scans.size(); --i >=0; ) if(scans.get(i).isEmpty()) scans.remove(i);
         
-        System.gc();
+        collectGarbage();
               
         if(!hasOption("lab")) initSourceModel();
 
@@ -462,6 +474,17 @@ public class CRUSH extends Configurator implements BasicMessaging {
         // Then, shut down the old executor (releases thread resources back to the OS!)
         if(oldExecutor != null) oldExecutor.shutdown();
         if(oldSourceExecutor != null) oldSourceExecutor.shutdown();
+        
+        final ProductWriter oldWriter = writer;
+        if(hasOption("write.async")) {
+            String spec = option("write.async").getValue();
+            writer = new ProductWriter(spec.isEmpty() ? 2 : option("write.async").getInt());
+        }
+        else writer = null;
+        if(oldWriter != null) oldWriter.shutdown();
+        
+        forceGC = hasOption("gc.force");
+        gcHeadroom = hasOption("gc.headroom") ? option("gc.headroom").getDouble() : 0.1;
     }
 
     private void setOutpath() throws Exception {
@@ -533,13 +556,27 @@ public class CRUSH extends Configurator implements BasicMessaging {
                 scan.writeLog(option("obslog"),  instrument.getOutputPath() + File.separator + instrument.getName() + ".obs.log");
             }
             else { 
-                scan = instrument.readScan(scanID, true);
-                scan.validate();
+                ScanCache cache = hasOption("cache") ? new ScanCache(instrument) : null;
+                String key = cache == null ? null : cache.getKey(scanID);
+                
+                if(cache != null) if(key == null) {
+                    info("Cannot locate data file for scan " + scanID + ". Reading without cache.");
+                    cache = null;
+                }
+                
+                if(cache != null) scan = cache.get(key);
+                
+                if(scan == null) {
+                    scan = instrument.readScan(scanID, true);
+                    scan.validate();
+                    if(cache != null) if(scan.size() > 0) cache.put(key, scan);
+                }
+                
                 if(scan.size() == 0) warning(scan, "Scan " + scan.getID() + " contains no valid data. Skipping.");
                 else if(hasOption("subscans.split")) scans.addAll(scan.split());	
                 else scans.add(scan);
 
-                System.gc();
+                collectGarbage();
             }
         }
         catch(OutOfMemoryError e) {
@@ -652,7 +689,92 @@ public class CRUSH extends Configurator implements BasicMessaging {
             else warning("The reduction did not result in a source model.");
         }
 
-        for(Scan<?> scan : scans) scan.writeProducts();   
+        for(Scan<?> scan : scans) scan.writeProducts();
+        
+        flushProducts();
+    }
+    
+    /**
+     * Writes a product, either in the background (if the 'write.async' option is set), or else right away. Products
+     * written in the background should hold a snapshot of the data they write. 
+     * 
+     * @param owner         The object on behalf of which the product is written (for messaging).
+     * @param product       The product to write.
+     * @throws Exception    If the product was written right away, and there was an error writing it.
+     * 
+     * @see ProductWriter
+     */
+    public static void write(Object owner, ProductWriter.Product product) throws Exception {
+        final ProductWriter w = writer;
+        if(w != null) w.submit(owner, product);
+        else product.write();
+    }
+    
+    /**
+     * Waits until all products submitted for background writing have been written.
+     */
+    public static void flushProducts() {
+        final ProductWriter w = writer;
+        if(w != null) w.flush();
+    }
+    
+    /**
+     * Suggests a full garbage collection, at a point where much of the memory used before is likely to have been
+     * released (e.g. after reading a scan). Unless the 'gc.force' option is set, the collection is requested only 
+     * when the heap headroom (the memory that can still be allocated) is below the fraction of the maximum heap set
+     * by 'gc.headroom'. Otherwise, collecting garbage is left to the JVM's own collector, which is usually much 
+     * cheaper than a forced stop-the-world collection on a large heap.
+     */
+    public static void collectGarbage() {
+        if(!forceGC) {
+            final Runtime runtime = Runtime.getRuntime();
+            final long max = runtime.maxMemory();
+            final long headroom = max - (runtime.totalMemory() - runtime.freeMemory());
+            
+            if(headroom >= gcHeadroom * max) {
+                skippedGCs.incrementAndGet();
+                return;
+            }
+        }
+        
+        final long start = System.nanoTime();
+        System.gc();
+        gcNanos.addAndGet(System.nanoTime() - start);
+        performedGCs.incrementAndGet();
+    }
+    
+    private void reportGarbageCollection() {
+        final int skipped = skippedGCs.getAndSet(0);
+        final int performed = performedGCs.getAndSet(0);
+        final double seconds = 1e-9 * gcNanos.getAndSet(0);
+        
+        if(performed > 0) detail(this, "Forced " + performed + " garbage collection(s) in " + Util.f2.format(seconds) + " s.");
+        
+        if(skipped == 0) return;
+        
+        // Use the measured pause of the forced collections, if any, or else the JVM's own full collections...
+        final double pause = performed > 0 ? seconds / performed : getFullGCPause();
+        
+        info("Skipped " + skipped + " forced garbage collection(s), saving ~" + Util.f1.format(skipped * pause) + " s.");
+    }
+    
+    /**
+     * Returns the average pause of the JVM's most expensive garbage collector so far, as an estimate of how long
+     * a forced full collection takes when none was forced. The most expensive collector is normally the one 
+     * collecting the old generation (or the whole heap).
+     * 
+     * @return  (s) The average pause of the slowest collector, or 0.0 if no collector has run yet.
+     */
+    private static double getFullGCPause() {
+        double pause = 0.0;
+        
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            final long count = gc.getCollectionCount();
+            final long millis = gc.getCollectionTime();
+            if(count > 0 && millis >= 0) pause = Math.max(pause, 1e-3 * millis / count);
+        }
+        
+        return pause;
     }
 
     public void iterate() throws Exception {
@@ -1072,6 +1194,8 @@ public class CRUSH extends Configurator implements BasicMessaging {
     }
 
     public void shutdown() {
+        flushProducts();
+        reportGarbageCollection();
         if(instrument != null) instrument.shutdown();
         Util.setDefaultReporter();
     }
@@ -26,10 +26,8 @@ package crush;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
-import java.util.Collection;
-import java.util.HashSet;
 
-import crush.instrument.Overlap;
+import crush.instrument.OverlapList;
 import jnum.Copiable;
 import jnum.Util;
 import jnum.data.Flagging;
@@ -64,7 +62,7 @@ public abstract class Channel implements Serializable, Cloneable, Comparable<Cha
     int index;                                     // This pixel's index in the parent instrument.
 	
 	private Pixel pixel;	
-	private transient Collection<Overlap<Channel>> overlaps;
+	private transient OverlapList<Channel> overlaps;
 
 	transient float temp, tempG, tempWG, tempWG2;  // these are used as associated temporary variables during reduction.
 	
@@ -267,18 +265,23 @@ public abstract class Channel implements Serializable, Cloneable, Comparable<Cha
 	void setPixel(Pixel pixel) { this.pixel = pixel; }
 	
 	
-	public Collection<Overlap<Channel>> getOverlaps() { return overlaps; }
+	/**
+	 * Returns the list of other channels that overlap with this one, with the corresponding overlap values, as 
+	 * calculated by {@link Instrument#calcOverlaps(double)}.
+	 * 
+	 * @return	The overlapping neighbours of this channel, or <code>null</code> if not calculated.
+	 */
+	public OverlapList<Channel> getOverlaps() { return overlaps; }
 	
-	public void setOverlaps(Collection<Overlap<Channel>> overlaps) { this.overlaps = overlaps; }
+	public void setOverlaps(OverlapList<Channel> overlaps) { this.overlaps = overlaps; }
 	
 	public void clearOverlaps() {
 		if(overlaps != null) overlaps.clear();
 	}
 	
-	public synchronized void addOverlap(Overlap<Channel> overlap) {
-		if(overlap.a != this && overlap.b != this) return;
-		if(overlaps == null) overlaps = new HashSet<>();
-		overlaps.add(overlap);		
+	public void addOverlap(Channel other, double overlap) {
+		if(overlaps == null) overlaps = new OverlapList<>();
+		overlaps.add(other, overlap);		
 	}
 	
 	public double overlap(Channel other, double pointSize) {
@@ -24,10 +24,9 @@
 package crush;
 
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.stream.IntStream;
 
-import crush.instrument.Overlap;
+import crush.instrument.OverlapList;
 import jnum.ExtraMath;
 import jnum.data.DataPoint;
 import jnum.data.Statistics;
@@ -251,13 +250,13 @@ public class CorrelatedSignal extends Signal {
                 if(channel.isFlagged(skipFlags)) return;
 
                 double phi = dependents.get(channel);
-                final Collection<Overlap<Channel>> overlaps = channel.getOverlaps();
+                final OverlapList<Channel> overlaps = channel.getOverlaps();
 
                 // Every pixel that sees the source contributes to the filtering...
-                if(overlaps != null) for(Overlap<Channel> overlap : overlaps) {
-                    final Channel other = (overlap.a == channel) ? overlap.b : overlap.a; 
+                if(overlaps != null) for(int i=overlaps.size(); --i >= 0; ) {
+                    final Channel other = overlaps.get(i); 
                     if(other.isFlagged(skipFlags)) continue;
-                    phi += overlap.value() * dependents.get(other);
+                    phi += overlaps.getOverlap(i) * dependents.get(other);
                 }
 
 
@@ -148,20 +148,52 @@ public class Dependents implements Serializable, Cloneable, CopiableContent<Depe
 	}
 	
 	public synchronized void clear(final List<? extends Channel> channels, final int from, final int to) { 
+	    clearFrames(from, to);
+	    clearChannels(channels);
+	}
+	
+	/**
+	 * Removes the frame dependents for a range of frames only. Concurrent updates of disjoint frame ranges (e.g. 
+	 * phases) can thus manage their frame dependents separately from the channel dependents, which they share.
+	 * 
+	 * @param from     The index of the first frame (inclusive).
+	 * @param to       The index of the last frame (exclusive).
+	 * 
+	 * @see #clearChannels(List)
+	 */
+	public synchronized void clearFrames(final int from, final int to) {
 	    IntStream.range(from, to).parallel().mapToObj(integration::get).filter(f -> f != null)
 	    .peek(f -> f.removeDependents(f.index))
 	    .forEach(f -> forFrame[f.index] = 0.0F);
-	    
+	}
+	
+	public synchronized void clearChannels(final List<? extends Channel> channels) {
 	    channels.parallelStream()
 	    .peek(c -> c.removeDependents(forChannel[c.index]))
 	    .forEach(c -> forChannel[c.index] = 0.0F);
 	}
 		
 	public synchronized void apply(final List<? extends Channel> channels, final int from, int to) {
+	    applyFrames(from, to);
+	    applyChannels(channels);
+	}
+	
+	/**
+	 * Applies the frame dependents for a range of frames only.
+	 * 
+	 * @param from     The index of the first frame (inclusive).
+	 * @param to       The index of the last frame (exclusive).
+	 * 
+	 * @see #clearFrames(int, int)
+	 * @see #applyChannels(List)
+	 */
+	public synchronized void applyFrames(final int from, final int to) {
 	    IntStream.range(from, to).parallel().mapToObj(integration::get).filter(f -> f != null)
         .forEach(f -> f.addDependents(forFrame[f.index]));
-
-        channels.parallelStream()
+	}
+	
+	public synchronized void applyChannels(final List<? extends Channel> channels) {
+	    channels.parallelStream()
         .forEach(c -> c.addDependents(forChannel[c.index]));
 	}
 	
@@ -156,6 +156,9 @@ public abstract class Frame implements Serializable, Cloneable, CopiableContent<
 			if(withContents) System.arraycopy(sourceIndex, 0, copy.sourceIndex, 0, sourceIndex.length);
 		}
 		
+		// The rotation is set in place, so it cannot be shared with the copy...
+		if(rotation != null) copy.rotation = new Angle(rotation.value());
+		
 		return copy;
 	}
 	
@@ -252,6 +255,8 @@ public abstract class Frame implements Serializable, Cloneable, CopiableContent<
 		return true;
 	}
 	
+	public final boolean isValid() { return isValid; }
+	
 	public void cloneReadout(Frame from) {
 	    data = from.data;
 	}
@@ -293,7 +298,8 @@ public abstract class Frame implements Serializable, Cloneable, CopiableContent<
     }
     
     public void setRotation(double angle) {
-        rotation = new Angle(angle);
+        if(rotation == null) rotation = new Angle(angle);
+        else rotation.setRadians(angle);
     }
     
     public void getFocalPlaneOffset(final Vector2D fpPosition, final Vector2D offset) {
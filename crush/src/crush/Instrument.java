@@ -29,10 +29,8 @@ import java.util.*;
 import java.util.stream.IntStream;
 import java.text.*;
 
-import crush.instrument.GeometricIndexed;
 import crush.instrument.InstantFocus;
 import crush.instrument.NonOverlapping;
-import crush.instrument.Overlap;
 import crush.instrument.SkyGradient;
 import crush.motion.AccelerationResponse;
 import crush.motion.ChopperResponse;
@@ -1366,56 +1364,108 @@ implements TableFormatter.Entries, BasicMessaging {
 
     public void addHistory(Header header, List<Scan<?>> scans) throws HeaderCardException {}
 
-    // Sequential, because it is usually called from a parallel environment
+    /**
+     * Calculates the overlaps between channels, for a point source of the given size. Only channels whose pixels are
+     * within {@link #OVERLAP_RADIUS} point sizes of one another are considered, since the overlap is negligible 
+     * beyond that. Neighbours are found via a spatial grid over the pixel positions, with cells at least as large as
+     * the search radius, s.t. the calculation scales as <i>N</i> &times; neighbours, rather than <i>N</i><sup>2</sup>.
+     * The overlaps are stored in each channel's (compact) {@link crush.instrument.OverlapList}.
+     * 
+     * @param pointSize     The projected size (FWHM) of a point source in the image plane.
+     */
     public void calcOverlaps(final double pointSize) {
         if(this instanceof NonOverlapping) return;
 
         if(pointSize == overlapPointSize) return;
 
         for(Channel channel : this) channel.clearOverlaps();
-
-        if(this instanceof GeometricIndexed) calcGeometricOverlaps((GeometricIndexed) this, pointSize);
-        else new Fork<Void>() {
-            @Override
-            protected void process(ChannelType channel) {
-                for(int k=channel.index; --k >= 0; ) {
-                    final Channel other = get(k);
-                    final Overlap<Channel> overlap = new Overlap<>(channel, other, channel.overlap(other, pointSize));
-                    if(overlap.isNull()) continue;
-                    channel.addOverlap(overlap);
-                    other.addOverlap(overlap);
-                }	
-            }	
-        }.process();
-
-        overlapPointSize = pointSize;
-    }
-
-    // Sequential, because it is usually called from a parallel environment...
-    private void calcGeometricOverlaps(final GeometricIndexed geometric, final double pointSize) {
-        final double radius = 2.0 * pointSize;
-        final ChannelLookup<ChannelType> lookup = new ChannelLookup<>(this);
-
-        double nbeams = 2.0 * pointSize / getResolution();
-        final ArrayList<Integer> nearbyIndex = new ArrayList<>((int) Math.ceil(nbeams * nbeams));
-
-        for(Channel channel : this) {
-            nearbyIndex.clear();
-            geometric.addLocalFixedIndices(channel.getFixedIndex(), radius, nearbyIndex);
+        
+        final double radius = OVERLAP_RADIUS * pointSize;
+        final double r2 = radius * radius;
+        
+        // The positions of the channels (by index), NaN for those without a position...
+        final int n = size();
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        
+        double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+        double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+        int located = 0;
+        
+        for(int k=n; --k >= 0; ) {
+            final Pixel pixel = get(k).getPixel();
+            final Vector2D position = pixel == null ? null : pixel.getPosition();
+            
+            if(position == null || Double.isNaN(position.x()) || Double.isNaN(position.y())) {
+                x[k] = y[k] = Double.NaN;
+                continue;
+            }
+            
+            x[k] = position.x();
+            y[k] = position.y();
+            
+            if(x[k] < xmin) xmin = x[k];
+            if(x[k] > xmax) xmax = x[k];
+            if(y[k] < ymin) ymin = y[k];
+            if(y[k] > ymax) ymax = y[k];
+            located++;
         }
-
+        
+        if(located == 0) {
+            overlapPointSize = pointSize;
+            return;
+        }
+        
+        // Cells must be at least as large as the search radius, but no more numerous than ~4 per channel...
+        final double area = Math.max(xmax - xmin, radius) * Math.max(ymax - ymin, radius);
+        final double cellSize = Math.max(radius, Math.sqrt(area / (4.0 * located)));
+        
+        final int nx = (int) Math.floor((xmax - xmin) / cellSize) + 1;
+        final int ny = (int) Math.floor((ymax - ymin) / cellSize) + 1;
+        
+        final int[] cell = new int[n];
+        final int[] cellStart = new int[nx * ny + 1];
+        
+        for(int k=n; --k >= 0; ) {
+            if(Double.isNaN(x[k])) {
+                cell[k] = -1;
+                continue;
+            }
+            cell[k] = (int) Math.floor((x[k] - xmin) / cellSize) * ny + (int) Math.floor((y[k] - ymin) / cellSize);
+            cellStart[cell[k] + 1]++;
+        }
+        
+        // Channel indices sorted by cell (counting sort)...
+        for(int c=1; c < cellStart.length; c++) cellStart[c] += cellStart[c-1];
+        
+        final int[] members = new int[located];
+        final int[] fill = Arrays.copyOf(cellStart, cellStart.length - 1);
+        for(int k=0; k<n; k++) if(cell[k] >= 0) members[fill[cell[k]]++] = k;
+     
+        // Each channel collects its own neighbours, so no synchronization is necessary...
         new Fork<Void>() {
             @Override
             protected void process(ChannelType channel) {
-                for(int fixedIndex : nearbyIndex) {
-                    if(fixedIndex >= channel.getFixedIndex()) continue;
-
-                    final Channel other = lookup.get(fixedIndex);
-                    if(other == null) continue;
-
-                    final Overlap<Channel> overlap = new Overlap<>(channel, other, channel.overlap(other, pointSize));
-                    channel.addOverlap(overlap);
-                    other.addOverlap(overlap);
+                final int k = channel.index;
+                if(cell[k] < 0) return;
+                
+                final int i = cell[k] / ny;
+                final int j = cell[k] % ny;
+                
+                for(int i1 = Math.max(0, i-1); i1 <= Math.min(nx-1, i+1); i1++) for(int j1 = Math.max(0, j-1); j1 <= Math.min(ny-1, j+1); j1++) {
+                    final int c = i1 * ny + j1;
+                    for(int m = cellStart[c]; m < cellStart[c+1]; m++) {
+                        final int k2 = members[m];
+                        if(k2 == k) continue;
+                        
+                        final double dx = x[k2] - x[k];
+                        final double dy = y[k2] - y[k];
+                        if(dx * dx + dy * dy > r2) continue;
+                        
+                        final Channel other = get(k2);
+                        final double overlap = channel.overlap(other, pointSize);
+                        if(overlap != 0.0) channel.addOverlap(other, overlap);
+                    }
                 }
             }	
         }.process();
@@ -1549,6 +1599,9 @@ implements TableFormatter.Entries, BasicMessaging {
 
     public final static int GAINS_SIGNED = 0;
     public final static int GAINS_BIDIRECTIONAL = 1;
+    
+    /** The maximum separation of overlapping pixels, relative to the point source size. */
+    public final static double OVERLAP_RADIUS = 2.0;
 
     // TODO no lookup access?
     public final static Unit arcsec = Unit.get("arcsec");
@@ -25,7 +25,7 @@ package crush;
 
 
 import java.io.*;
-import java.text.DecimalFormat;
+import java.text.NumberFormat;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
@@ -33,6 +33,8 @@ import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import crush.filters.*;
+import crush.fits.ParallelGZIPOutputStream;
+import crush.fits.StreamingImageWriter;
 import crush.instrument.Response;
 import crush.motion.Chopper;
 import crush.motion.Chopping;
@@ -57,6 +59,7 @@ import jnum.projection.Projector2D;
 import jnum.reporting.BasicMessaging;
 import jnum.text.TableFormatter;
 import nom.tam.fits.*;
+import nom.tam.util.BufferedDataOutputStream;
 
 /**
  * 
@@ -98,13 +101,15 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
     public DataPoint aveScanSpeed;
     public MultiFilter filter;
-    private FloatFFT FFT;
+    private transient FloatFFT FFT;
+    private transient Hashtable<String, float[][]> spectraCache;
 
     public double filterTimeScale = Double.POSITIVE_INFINITY;
     public double nefd = Double.NaN; // It is readily cast into the Jy sqrt(s) units!!!
 
     protected boolean isDetectorStage = false;
     protected boolean isValid = false;
+    protected boolean isDownsampled = false;
 
     private int parallelism = 1;
 
@@ -125,6 +130,7 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         // TODO redo it safely, s.t. existing reduction steps copy over as well?
         clone.dependents = new Hashtable<>(); 
         clone.signals = new Hashtable<>();
+        clone.spectraCache = null;
         clone.filter = null;
         if(this instanceof Chopping) ((Chopping) clone).setChopper(null);
 
@@ -159,6 +165,32 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         super.add(index, frame);
     }
 
+    /**
+     * Appends a contiguous block of frames (which may contain <code>null</code> gaps) in bulk, taking ownership of 
+     * them, i.e. they are re-parented to this integration and re-indexed to their new positions in it. 
+     * 
+     * @param frames    The frames to append, e.g. a sub-list view of another integration.
+     */
+    public void addFrames(final List<? extends FrameType> frames) {
+        final int from = size();
+        super.addAll(frames);
+
+        IntStream.range(from, size()).parallel().filter(k -> get(k) != null).forEach(k -> {
+            final FrameType frame = get(k);
+            frame.setParent(this);
+            frame.index = k;
+        });
+    }
+
+    /**
+     * Appends a gap of the specified number of <code>null</code> frames, in one go.
+     * 
+     * @param frames    The number of (missing) frames in the gap.
+     */
+    public void addGap(final int frames) {
+        if(frames > 0) super.addAll(Collections.nCopies(frames, (FrameType) null));
+    }
+
 
     @Override
     public int compareTo(Integration<FrameType> other) {
@@ -179,6 +211,7 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
     public void nextIteration() {
         comments = new StringBuffer();
+        clearSpectra();
     }
 
     public boolean hasOption(String key) {
@@ -208,8 +241,13 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
                 Frame frame = get(index);
                 if(frame == null) return;
 
-                if(!frame.validate()) set(index, null); 
-                else frame.index = index;
+                // Frames validated already (e.g. when downsampled while reading) are not validated again...
+                if(!frame.isValid()) if(!frame.validate()) {
+                    set(index, null);
+                    return;
+                }
+                
+                frame.index = index;
             }
         }.process();
 
@@ -251,8 +289,8 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         if(instrument.mappingChannels < minChannels)
             throw new IllegalStateException("Too few valid channels (" + instrument.mappingChannels + ").");
 
-        // Automatic downsampling after vclipping...
-        if(hasOption("downsample")) downsample();
+        // Automatic downsampling after vclipping (unless already downsampled while reading)...
+        if(hasOption("downsample")) if(!isDownsampled) downsample();
 
         trim();
 
@@ -299,15 +337,9 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
         instrument.calcOverlaps(scan.getPointSize());
 
-        System.gc();
+        CRUSH.collectGarbage();
 
         isValid = true;
-
-        if(hasOption("speedtest")) {
-            speedTest();
-            isValid = false;
-        }
-
     }
 
     public void jackknife() {
@@ -323,6 +355,7 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
     }
 
     public void setIteration(int i, int rounds) {
+        clearSpectra();
         CRUSH.setIteration(instrument.getOptions(), i, rounds);  
         instrument.calcOverlaps(scan.getPointSize());
     }
@@ -1716,6 +1749,17 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
     }
 
 
+    /**
+     * Flags features (spikes) in the time-stream at multiple resolutions, from single samples up to blocks
+     * of half the filter time-scale. At each resolution, adjacent (overlapping) blocks are differenced, and blocks 
+     * whose difference is significant above the specified level are flagged. The coarser resolutions are formed
+     * by summing pairs of blocks, in the manner of a Haar pyramid.
+     * <p>
+     * All resolutions are processed together, in a single streamed pass over each channel's samples, 
+     * keeping only the last block of each resolution in memory.
+     * 
+     * @param significance  The significance above which differences are flagged as features.
+     */
     public void despikeMultires(final double significance) {
         int maxBlockSize = framesFor(filterTimeScale) >>> 1;
         if(maxBlockSize < 1) maxBlockSize = 1;	
@@ -1725,9 +1769,12 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
         final ChannelGroup<?> liveChannels = instrument.getLiveChannels();
         final int nt = size();
-        final int mbSize = maxBlockSize;
         final int notSpike = ~Frame.SAMPLE_SPIKE;
 
+        int n = 0;
+        for(int blockSize = 1; blockSize <= maxBlockSize; blockSize <<= 1) n++;
+        final int levels = n;
+
         // Clear the spike flags...
         new Fork<Void>() {
             @Override
@@ -1736,59 +1783,62 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
             }
         }.process();
 
+        if(levels == 0) return;
+
         instrument.new Fork<Void>() {
-            private float[] data, weight;
-            private DataPoint diff, sum, temp;
+            // The last block seen, and the number of blocks seen so far, at each resolution.
+            private float[] lastValue, lastWeight;
+            private int[] count;
 
             @Override
             protected void init() {
                 super.init();
-                sum = new DataPoint();
-                diff = new DataPoint();
-                temp = new DataPoint();
-                data = getFloats();
-                weight = getFloats();
-            }
-
-            @Override
-            protected void cleanup() {
-                super.cleanup();
-                recycle(data);
-                recycle(weight);
+                lastValue = new float[levels];
+                lastWeight = new float[levels];
+                count = new int[levels];
             }
 
             @Override
             protected void process(final Channel channel) {
-                getTimeStream(channel, data, weight);
+                final int c = channel.index;
+                Arrays.fill(count, 0);
 
-                // check and divide...
-                int n = size();
-                for(int blockSize = 1; blockSize <= mbSize; blockSize <<= 1) {
+                for(int t=0; t < nt; t++) {
+                    final Frame exposure = get(t);
 
-                    for(int T=1; T < n; T++) if(T < n) {
-                        sum.setValue(data[T]);
-                        sum.setWeight(weight[T]);
+                    float value = 0.0F, weight = 0.0F;
 
-                        temp.setValue(data[T-1]);
-                        temp.setWeight(weight[T-1]);
+                    if(exposure != null) if(exposure.isUnflagged(Frame.MODELING_FLAGS)) if(exposure.sampleFlag[c] == 0) {
+                        value = exposure.relativeWeight * exposure.data[c];
+                        weight = exposure.relativeWeight;
+                    }
 
-                        diff.copy(sum);
+                    // Push the sample up the pyramid for as long as it completes a pair of blocks...
+                    for(int level = 0, blockSize = 1; level < levels; level++, blockSize <<= 1) {
+                        final int T = count[level]++;
 
-                        sum.add(temp);
-                        diff.subtract(temp);
+                        final float prevValue = lastValue[level];
+                        final float prevWeight = lastWeight[level];
 
-                        data[T>>>1] = (float) sum.value();
-                        weight[T>>>1] = (float) sum.weight();
+                        lastValue[level] = value;
+                        lastWeight[level] = weight;
 
-                        if(diff.significance() > significance) {
-                            for(int t=Math.min(nt, T*blockSize), blockt=blockSize; --blockt >= 0; t--) {
-                                final Frame exposure = get(t);
-                                if(exposure != null) exposure.sampleFlag[channel.index] |= Frame.SAMPLE_SPIKE;		
+                        if(T == 0) break;
+
+                        final double w = weight > 0.0F && prevWeight > 0.0F ? 1.0 / (1.0 / weight + 1.0 / prevWeight) : 0.0;
+
+                        if(Math.abs((double) value - prevValue) * Math.sqrt(w) > significance) {
+                            for(int t1=Math.min(nt, T*blockSize), blockt=blockSize; --blockt >= 0; t1--) {
+                                final Frame spiky = get(t1);
+                                if(spiky != null) spiky.sampleFlag[c] |= Frame.SAMPLE_SPIKE;		
                             }
-                        }				
-                    }
+                        }
+
+                        if((T & 1) == 0) break;
 
-                    n >>>= 1;
+                        value = (float) ((double) value + prevValue);
+                        weight = (float) w;
+                    }
                 }
             }
 
@@ -2135,9 +2185,9 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
     public void downsample(final int n) {
         if(n < 2) return;
 
-        final int windowSize = (int)Math.round(1.82 * n * WindowFunction.getEquivalentWidth("Hann"));
+        final double[] w = getDownsamplingWindow(n);
+        final int windowSize = w.length;
         final int centerOffset = windowSize/2 + 1;
-        final double[] w = WindowFunction.get("Hann", windowSize);
 
         final int N = ExtraMath.roundupRatio(size()-windowSize, n);
 
@@ -2150,10 +2200,6 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
         final Frame[] buffer = new Frame[N];
 
-        // Normalize window function to absolute integral 1
-        final double norm = DoubleStream.of(w).parallel().map(Math::abs).sum();
-        IntStream.range(0, w.length).parallel().forEach(i -> w[i] /= norm);
-
         new CRUSH.Fork<Void>(N, getThreadCount()) {
             @Override
             protected void processIndex(int k) { buffer[k] = getDownsampled(k); }
@@ -2189,6 +2235,129 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         signals.clear();
     }
 
+    private static double[] getDownsamplingWindow(int n) {
+        final int windowSize = (int)Math.round(1.82 * n * WindowFunction.getEquivalentWidth("Hann"));
+        final double[] w = WindowFunction.get("Hann", windowSize);
+
+        // Normalize window function to absolute integral 1
+        final double norm = DoubleStream.of(w).parallel().map(Math::abs).sum();
+        IntStream.range(0, w.length).parallel().forEach(i -> w[i] /= norm);
+
+        return w;
+    }
+
+    /**
+     * Returns the fixed downsampling factor that should be applied to frames while they are being read, according to
+     * the 'downsample' and 'downsample.read' options. Automatic downsampling cannot be applied while reading, since 
+     * it is based on the scanning speeds of the full-rate data.
+     * 
+     * @return  the downsampling factor to apply while reading, or 1 if frames are to be read at full rate.
+     */
+    public int getReadDownsampling() {
+        if(!hasOption("downsample")) return 1;
+        if(!hasOption("downsample.read")) return 1;
+
+        if(option("downsample").is("auto")) {
+            warning("Automatic downsampling cannot be applied while reading data.");
+            return 1;
+        }
+
+        for(String key : getFullRateOptions()) if(hasOption(key)) {
+            warning("Cannot downsample while reading with '" + key + "' enabled. Reading data at full rate.");
+            return 1;
+        }
+
+        return Math.max(1, option("downsample").getInt());
+    }
+
+    /**
+     * Returns the options for processing steps that must operate on the full-rate data (before the regular 
+     * downsampling), and which cannot be applied to frames one at a time while they are being read. If any of these
+     * is enabled, data are not downsampled while reading.
+     * 
+     * @return  the list of option keys that require full-rate data.
+     * 
+     * @see #getReadDownsampling()
+     */
+    protected List<String> getFullRateOptions() {
+        return new ArrayList<>(Arrays.asList("notch", "detect.chopped", "vclip", "aclip", "filter.kill"));
+    }
+
+    /**
+     * 
+     * Downsamples frames as they are read, in time order, such that only the downsampled frames are ever stored in 
+     * the integration (plus a few full-rate frames in the window buffer). It applies the same anti-aliasing 
+     * Hann-window convolution as {@link Integration#downsample(int)}, except that frames are validated before they 
+     * are used, and any window containing invalid (or missing) frames produces an empty (<code>null</code>) 
+     * frame.
+     * <p>
+     * 
+     * Once all frames have been added, {@link #finish()} must be called to update the sampling of the instrument
+     * accordingly.
+     * 
+     * @author Attila Kovacs <attila@sigmyne.com>
+     *
+     */
+    public class Decimator {
+        private final int factor, windowSize, centerOffset;
+        private final double[] w;
+        private final Frame[] window;
+        private int received = 0;
+
+        public Decimator(int factor) {
+            this.factor = factor;
+            w = getDownsamplingWindow(factor);
+            windowSize = w.length;
+            centerOffset = windowSize/2 + 1;
+            window = new Frame[windowSize];
+        }
+
+        public final int getFactor() { return factor; }
+
+        public void add(FrameType frame) {
+            if(frame != null) if(!frame.validate()) frame = null;
+
+            window[received % windowSize] = frame;
+            received++;
+
+            if(received < windowSize) return;
+            if((received - windowSize) % factor != 0) return;
+
+            Integration.this.add(getDownsampled());
+        }
+
+        @SuppressWarnings("unchecked")
+        private FrameType getDownsampled() {
+            final int to = received;
+            final Frame central = window[(to - centerOffset) % windowSize];
+            if(central == null) return null;
+
+            final FrameType downsampled = (FrameType) central.copy(false);
+
+            for(int t=to-windowSize; t<to; t++) {
+                final Frame exposure = window[t % windowSize];
+                if(exposure == null) return null;
+                downsampled.addDataFrom(exposure, w[to-t-1]);
+            }
+
+            return downsampled;
+        }
+
+        public void finish() {
+            Arrays.fill(window, null);
+
+            info("Downsampled by " + factor + " to " + size() + " frames while reading.");
+
+            instrument.samplingInterval *= factor;
+            instrument.integrationTime *= factor;
+
+            trimToSize();
+            reindex();
+
+            isDownsampled = true;
+        }
+    }
+
 
     public void notchFilter() {
         if(!hasOption("notch.frequencies")) return;
@@ -2226,16 +2395,26 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         final double df = 1.0 / (windowSize * instrument.samplingInterval);
         final int nf = windowSize >>> 1;
 
-                info("Notching " + frequencies.size() + " bands.");
+        final int[] bins = frequencies.stream().mapToInt(f -> (int) Math.floor(f / df))
+                .flatMap(bin -> IntStream.of(bin, bin + 1)).filter(bin -> bin <= nf).distinct().sorted().toArray();
+
+        // Project out just the notched bins instead of transforming the windows back and forth, if cheaper...
+        final boolean isSparse;
+        if(hasOption("notch.dft")) isSparse = true;
+        else if(hasOption("notch.fft")) isSparse = false;
+        else isSparse = SparseDFT.isPreferred(Math.min(windowSize, size()), windowSize, bins.length);
+
+        info("Notching " + frequencies.size() + " bands" + (isSparse ? " (sparse DFT)." : "."));
 
                 instrument.new Fork<Void>() {
                     private FloatFFT fft;
-                    private float[] data;
+                    private float[] data, rejected;
 
                     @Override
                     protected void init() {
                         fft = getFFT();
                         data = new float[windowSize];
+                        if(isSparse) rejected = new float[windowSize];
                     }
 
                     @Override
@@ -2261,17 +2440,20 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
                         final float ave = n > 0 ? (float) (sum / n) : 0.0F;
                         for(int t=from; t<to; t++) if(get(t) != null) data[t - from] -= ave;
 
-                        Arrays.fill(data, to - from, data.length, 0.0F);
+                        if(isSparse) {
+                            Arrays.fill(rejected, 0, to - from, 0.0F);
+                            SparseDFT.getRejected(data, 0, to - from, windowSize, bins, null, rejected);
+                            for(int t=to - from; --t >= 0; ) data[t] -= rejected[t];
+                        }
+                        else {
+                            Arrays.fill(data, to - from, data.length, 0.0F);
 
-                        fft.real2Amplitude(data);
+                            fft.real2Amplitude(data);
 
-                        for(double f : frequencies) { 
-                            int bin = (int)Math.floor(f / df);
-                            filter(bin);
-                            filter(bin+1);
-                        }	
+                            for(int bin : bins) filter(bin);
 
-                        fft.amplitude2Real(data);
+                            fft.amplitude2Real(data);
+                        }
 
                         for(int t=from; t<to; t++) {
                             final Frame frame = get(t);
@@ -2281,8 +2463,9 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
                     }
 
                     private void filter(int bin) {
-                        if(bin > nf) return;
-                        if(bin == nf) data[1] = 0.0F;
+                        // data[1] holds the Nyquist component, so the DC component has no imaginary part to clear...
+                        if(bin == 0) data[0] = 0.0F;
+                        else if(bin == nf) data[1] = 0.0F;
                         else {
                             bin <<= 1;
                             data[bin] = 0.0F;
@@ -2370,35 +2553,147 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         notify("Written ASCII time-streams to " + filename);
     }
 
+    public void writeBinaryTimeStream(String path, int format) throws IOException, HeaderCardException {
+        String fileName = path + File.separator + getFileID() + ".tms" + StreamingImageWriter.getExtension(format);
+        final boolean compress = hasOption("gzip");
+        if(compress) fileName += ".gz";
+
+        final int nc = instrument.size();
+
+        try(final StreamingImageWriter out = new StreamingImageWriter(new File(fileName), format, nc, size(), compress)) {
+            addBinaryHeader(out);
+            out.addValue("SAMPRATE", 1.0 / instrument.samplingInterval, "(Hz) Sampling rate.");
+            out.addValue("CTYPE2", "TIME", "Rows are frames.");
+            out.addValue("CUNIT2", "s", "Time unit.");
+            out.addValue("CRPIX2", 1, "Reference row.");
+            out.addValue("CRVAL2", 0.0, "Time at reference row.");
+            out.addValue("CDELT2", instrument.samplingInterval, "Time between rows.");
+
+            // Invalid frames, and spiky samples are written as NaN.
+            for(final Frame exposure : this) {
+                final boolean isValid = exposure != null && exposure.isUnflagged(Frame.BAD_DATA);
+                for(int c=0; c<nc; c++) 
+                    out.put(isValid && (exposure.sampleFlag[c] & Frame.SAMPLE_SPIKE) == 0 ? exposure.data[c] : Float.NaN);
+            }
+        }
+
+        notify("Written binary time-streams to " + fileName);
+    }
+
+    protected void addBinaryHeader(StreamingImageWriter out) throws HeaderCardException {
+        out.addValue("CREATOR", "CRUSH " + CRUSH.getFullVersion(), "Software that created this file.");
+        out.addValue("INSTRUME", instrument.getName(), "Instrument name.");
+        out.addValue("SCANID", scan.getID(), "Scan ID.");
+        out.addValue("INTEGRAT", getID(), "Integration (subscan) ID.");
+        out.addValue("CTYPE1", "CHANNEL", "Columns are channels, in backend order.");
+    }
+
+    /**
+     * Returns the binary format set for an output product via its 'format' sub-option.
+     * 
+     * @param productKey    The option key of the output product, e.g. "write.ascii".
+     * @return              The binary format constant (see {@link StreamingImageWriter}), or -1 if the product should 
+     *                      be written in the default text format.
+     */
+    protected int getBinaryFormat(String productKey) {
+        if(!hasOption(productKey + ".format")) return -1;
+        return StreamingImageWriter.getFormat(option(productKey + ".format").getValue());
+    }
+
+    /**
+     * Returns the weight-normalized channel covariance matrix of the time-stream, i.e. the pairwise products 
+     * of the unflagged samples, weighted by the relative frame weights, and scaled by the geometric mean of the 
+     * channel weights. Pairs that share no valid samples (e.g. because either channel is flagged) are set to NaN.
+     * 
+     * The calculation runs in the manner of a blocked SYRK: blocks of frames are packed into contiguous, 
+     * channel-major arrays with the flags folded into the (zeroed) weights, and the products are then 
+     * accumulated tile by tile over pairs of channel blocks, in parallel. 
+     * 
+     * @return  The covariance matrix, indexed by the current channel indices.
+     */
     public double[][] getCovariance() {
-        info("Calculating Covariance Matrix (this may take a while...)");
+        info("Calculating Covariance Matrix...");
 
-        final double[][] covar = new double[instrument.size()][instrument.size()];
-        final int[][] n = new int[instrument.size()][instrument.size()];
+        final int nc = instrument.size();
+        final double[][] covar = new double[nc][nc];
+        final double[][] n = new double[nc][nc];
 
-        instrument.new Fork<Void>() {
-            @Override
-            protected void process(Channel channel) {
-                if(channel.isFlagged()) return; 
+        final int tiles = (nc + COVARIANCE_CHANNEL_TILE - 1) / COVARIANCE_CHANNEL_TILE;
 
-                final double[] rowC = covar[channel.index];
-                final int[] rowN = n[channel.index];
+        // Channel-major packed frame blocks: weighted data, and the unflagged sample mask.
+        final float[][] x = new float[nc][COVARIANCE_FRAME_BLOCK];
+        final float[][] m = new float[nc][COVARIANCE_FRAME_BLOCK];
 
-                for(final Frame exposure : Integration.this) if(exposure != null) 
-                    if(exposure.isUnflagged(Frame.SOURCE_FLAGS)) if(exposure.sampleFlag[channel.index] == 0) 
-                        for(int c2=instrument.size(); --c2 > channel.index; ) if(instrument.get(c2).isUnflagged()) if(exposure.sampleFlag[c2] == 0) {
-                            rowC[c2] += exposure.relativeWeight * exposure.data[channel.index] * exposure.data[c2];
-                            rowN[c2]++;
-                        }
+        for(int from = 0; from < size(); from += COVARIANCE_FRAME_BLOCK) {
+            final int block = Math.min(COVARIANCE_FRAME_BLOCK, size() - from);
 
-                for(int c2=instrument.size(); --c2 >= channel.index; ) {
-                    rowC[c2] *= Math.sqrt(instrument.get(channel.index).weight * instrument.get(c2).weight) / rowN[c2];
-                    covar[c2][channel.index] = rowC[c2];
+            for(int k = 0; k < block; k++) {
+                final Frame exposure = get(from + k);
+
+                if(exposure == null || exposure.isFlagged(Frame.SOURCE_FLAGS) || !(exposure.relativeWeight > 0.0)) {
+                    for(int c = nc; --c >= 0; ) x[c][k] = m[c][k] = 0.0F;
+                    continue;
+                }
+
+                final float w = (float) Math.sqrt(exposure.relativeWeight);
+
+                for(int c = nc; --c >= 0; ) {
+                    if(exposure.sampleFlag[c] != 0 || instrument.get(c).isFlagged()) x[c][k] = m[c][k] = 0.0F;
+                    else {
+                        x[c][k] = w * exposure.data[c];
+                        m[c][k] = 1.0F;
+                    }
                 }
+            }
+
+            // Each tile row owns the corresponding rows of the output, so the accumulation needs no locking.
+            new CRUSH.Fork<Void>(tiles, getThreadCount()) {
+                @Override
+                protected void processIndex(int tile) {
+                    final int fromI = tile * COVARIANCE_CHANNEL_TILE;
+                    final int toI = Math.min(nc, fromI + COVARIANCE_CHANNEL_TILE);
+
+                    for(int fromJ = fromI; fromJ < nc; fromJ += COVARIANCE_CHANNEL_TILE) {
+                        final int toJ = Math.min(nc, fromJ + COVARIANCE_CHANNEL_TILE);
+
+                        for(int i = fromI; i < toI; i++) {
+                            final float[] xi = x[i], mi = m[i];
+                            final double[] rowC = covar[i], rowN = n[i];
+
+                            for(int j = Math.max(i, fromJ); j < toJ; j++) {
+                                final float[] xj = x[j], mj = m[j];
+                                double sum = 0.0, count = 0.0;
+
+                                for(int k = 0; k < block; k++) {
+                                    sum += xi[k] * xj[k];
+                                    count += mi[k] * mj[k];
+                                }
 
+                                rowC[j] += sum;
+                                rowN[j] += count;
+                            }
+                        }
+                    }
+                }
+            }.process();
+        }
+
+        instrument.new Fork<Void>() {
+            @Override
+            protected void process(Channel channel) {
+                final int i = channel.index;
+                final double[] rowC = covar[i], rowN = n[i];
+
+                for(int j = nc; --j >= i; ) {
+                    if(rowN[j] > 0.0) rowC[j] *= Math.sqrt(channel.weight * instrument.get(j).weight) / rowN[j];
+                    else rowC[j] = Double.NaN;
+                }
             }	
         }.process();
 
+        // Mirror the upper triangle into the lower one.
+        for(int i = nc; --i >= 0; ) for(int j = nc; --j > i; ) covar[j][i] = covar[i][j];
+
         return covar;
     }
 
@@ -2452,7 +2747,12 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
             BasicHDU<?> hdu = Fits.makeHDU(covar);
             fits.addHDU(hdu);
 
-            FitsToolkit.write(fits, name);
+            if(hasOption("gzip")) {
+                try(BufferedDataOutputStream out = new BufferedDataOutputStream(new ParallelGZIPOutputStream(new File(name + ".gz")))) {
+                    fits.write(out);
+                }
+            }
+            else FitsToolkit.write(fits, name);
             fits.close();
         }
     }
@@ -2484,7 +2784,37 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         return getSpectra("Hamming", 2*framesFor(filterTimeScale));
     }
 
-    float[][] getSpectra(String windowName, int windowSize) {
+    /**
+     * Returns the residual noise spectra of all channels, in Jy/sqrt(Hz), estimated by averaging the power of 
+     * overlapping windows of the time-stream. The spectra are calculated only once per iteration for a given 
+     * window, and shared by all consumers (e.g. 'write.spectrum' and the scan data tables) thereafter. Callers 
+     * should therefore treat the returned arrays as read-only.
+     * 
+     * @param windowName    The name of the window function, e.g. "Hamming".
+     * @param windowSize    The number of samples in the window.
+     * @return              The spectra, indexed by channel index, then frequency bin.
+     */
+    synchronized float[][] getSpectra(String windowName, int windowSize) {
+        final String key = windowName.toLowerCase() + ":" + windowSize;
+
+        if(spectraCache == null) spectraCache = new Hashtable<>();
+
+        float[][] spectra = spectraCache.get(key);
+        if(spectra == null) {
+            spectra = calcSpectra(windowName, windowSize);
+            spectraCache.put(key, spectra);
+        }
+        return spectra;
+    }
+
+    /**
+     * Discards the noise spectra calculated earlier, e.g. because the time-stream has changed since.
+     */
+    public synchronized void clearSpectra() {
+        spectraCache = null;
+    }
+
+    private float[][] calcSpectra(String windowName, int windowSize) {
         final double[] w = WindowFunction.get(windowName, windowSize);
 
         // info("Calculating Power spectra.");
@@ -2494,15 +2824,16 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
         final int nt = size();
 
-        final FloatFFT fft = new FloatFFT();
-        fft.noParallel();
-
         instrument.new Fork<Void>() {
+            private FloatFFT fft;
             private float[] data;
 
             @Override
             protected void init() {
                 super.init();
+                // A private FFT for each thread...
+                fft = new FloatFFT();
+                fft.noParallel();
                 data = getFloats();
             }
 
@@ -2534,40 +2865,99 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         return spectra;
     }
 
-    public void writeSpectra(String path, String windowName, int windowSize) throws IOException {
-        String fileName = path + File.separator + getFileID() + ".spec";
+    public void writeSpectra(String path, final String windowName, final int windowSize) throws Exception {
+        final String fileName = path + File.separator + getFileID() + ".spec";
 
+        // The spectra, the header, and the channel IDs are a snapshot, s.t. the file can be written in the background.
         final float[][] spectrum = getSpectra(windowName, windowSize);
         final double df = 1.0 / (instrument.samplingInterval * windowSize);
+        
+        final int format = getBinaryFormat("write.spectrum");
+        if(format >= 0) {
+            writeBinarySpectra(path, format, spectrum, df, windowName, windowSize);
+            return;
+        }
+        
+        final String header = getASCIIHeader();
+        
+        final String[] ids = new String[instrument.size()];
+        for(int i=ids.length; --i >= 0; ) ids[i] = instrument.get(i).getID();
+        
+        // A private copy of the (not thread-safe) shared number format...
+        final NumberFormat e3 = (NumberFormat) Util.e3.clone();
+
+        CRUSH.write(this, new ProductWriter.Product() {
+            @Override
+            public void write() throws IOException {
+                try(final PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(fileName), 1000000))) {
+                    out.println("# CRUSH Residual Detector Power Spectra");
+                    out.println();
+                    out.println(header);
+                    out.println("# Window Function: " + windowName);
+                    out.println("# Window Size: " + windowSize + " samples");
+                    out.println("# PSD unit: 'Jy/sqrt(Hz)'");
+                    out.println();
+
+                    // Column headers...
+                    out.println("#       \tChannel PSD (labeled by channel IDs):");
+                    out.print("# f(Hz) ");
+
+                    final int nc = ids.length;
+                    for(int i=0; i<nc; i++) out.print("\t" + ids[i]);
+                    out.println();
+
+                    for(int f=1; f<spectrum[0].length; f++) {
+                        out.print(e3.format(f*df));
+                        for(int i=0; i<nc; i++) out.print("\t" + e3.format(spectrum[i][f]));
+                        out.println();
+                    }
 
-        try(final PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(fileName), 1000000))) {
-            out.println("# CRUSH Residual Detector Power Spectra");
-            out.println();
-            out.println(getASCIIHeader());
-            out.println("# Window Function: " + windowName);
-            out.println("# Window Size: " + windowSize + " samples");
-            out.println("# PSD unit: 'Jy/sqrt(Hz)'");
-            out.println();
+                    out.flush();
+                    out.close();
+                }
 
-            // Column headers...
-            out.println("#       \tChannel PSD (labeled by channel IDs):");
-            out.print("# f(Hz) ");
+                Integration.this.notify("Written Power spectra to " + fileName);
+            }
+        });
+    }
 
-            final int nc = instrument.size();
-            for(int i=0; i<nc; i++) out.print("\t" + instrument.get(i).getID());
-            out.println();
+    private void writeBinarySpectra(String path, final int format, final float[][] spectrum, final double df, 
+            final String windowName, final int windowSize) throws Exception {
 
-            for(int f=1; f<spectrum[0].length; f++) {
-                out.print(Util.e3.format(f*df));
-                for(int i=0; i<nc; i++) out.print("\t" + Util.e3.format(spectrum[i][f]));
-                out.println();
-            }
+        final boolean compress = hasOption("gzip");
+        final String fileName = path + File.separator + getFileID() + ".spec" + StreamingImageWriter.getExtension(format) + (compress ? ".gz" : "");
 
-            out.flush();
+        final int nc = spectrum.length;
+        final StreamingImageWriter out = new StreamingImageWriter(new File(fileName), format, nc, spectrum[0].length - 1, compress);
+
+        try {
+            addBinaryHeader(out);
+            out.addValue("BUNIT", "Jy/sqrt(Hz)", "PSD unit.");
+            out.addValue("WINDOW", windowName, "Window function.");
+            out.addValue("WINSIZE", windowSize, "(samples) Window size.");
+            out.addValue("CTYPE2", "FREQ", "Rows are frequency channels.");
+            out.addValue("CUNIT2", "Hz", "Frequency unit.");
+            out.addValue("CRPIX2", 1, "Reference row.");
+            out.addValue("CRVAL2", df, "Frequency at reference row.");
+            out.addValue("CDELT2", df, "Frequency spacing of rows.");
+        }
+        catch(Exception e) {
             out.close();
+            throw e;
         }
 
-        notify("Written Power spectra to " + fileName);
+        // The spectra are a snapshot, so they can be written in the background
+        CRUSH.write(this, new ProductWriter.Product() {
+            @Override
+            public void write() throws IOException {
+                try {
+                    for(int f=1; f<spectrum[0].length; f++) for(int i=0; i<nc; i++) out.put(spectrum[i][f]);
+                }
+                finally { out.close(); }
+
+                Integration.this.notify("Written binary power spectra to " + fileName);
+            }
+        });
     }
 
 
@@ -2582,23 +2972,31 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
         for(String name : specs) {
             if(name.equalsIgnoreCase("full")){
-                try { writeCovariance(prefix + "-" + getFileID() + ".fits", getFullCovariance(covar)); }
+                try { writeCovarianceProduct(prefix + "-" + getFileID() + ".fits", getFullCovariance(covar)); }
                 catch(Exception e) { error(e); }	
             }
             else if(name.equalsIgnoreCase("reduced")){
-                try { writeCovariance(prefix + "-" + getFileID() + ".reduced.fits", covar); }
+                try { writeCovarianceProduct(prefix + "-" + getFileID() + ".reduced.fits", covar); }
                 catch(Exception e) { error(e); }	
             }	
             else {
                 ChannelDivision<?> division = instrument.divisions.get(name);
                 if(division == null) warning("Cannot write covariance for " + name + ". Undefined grouping.");
                 else {
-                    try { writeCovariance(prefix + "-" + getFileID() + "." + name + ".fits", getGroupCovariance(division, covar)); }
+                    try { writeCovarianceProduct(prefix + "-" + getFileID() + "." + name + ".fits", getGroupCovariance(division, covar)); }
                     catch(Exception e) { error(e); }	
                 }
             }
         }
     }
+    
+    private void writeCovarianceProduct(final String name, final double[][] covar) throws Exception {
+        // The covariance matrices are freshly calculated, so they can be written in the background as they are.
+        CRUSH.write(this, new ProductWriter.Product() {
+            @Override
+            public void write() throws Exception { writeCovariance(name, covar); }
+        });
+    }
 
     public void writeProducts() {
         String path = instrument.getOutputPath();
@@ -2617,7 +3015,11 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
         if(hasOption("write.covar")) writeCovariances(path);
 
         if(hasOption("write.ascii")) {
-            try { writeASCIITimeStream(path); }
+            final int format = getBinaryFormat("write.ascii");
+            try { 
+                if(format < 0) writeASCIITimeStream(path);
+                else writeBinaryTimeStream(path, format);
+            }
             catch(Exception e) { error(e); }
         }
 
@@ -3336,107 +3738,6 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
 
 
-
-
-    public void speedTest() {
-        Frame[] frame = new Frame[size()];
-        frame = toArray(frame);
-
-        Channel[] channel = new Channel[instrument.size()];
-        channel = instrument.toArray(channel);
-
-        int m=0;
-        int iters = 100;
-
-        // First the array...
-        int i = 0;
-        long a = System.currentTimeMillis();
-        for(int k=iters; --k >= 0; ) for(int t=frame.length; --t >= 0; ) {
-            final Frame exposure = frame[t];
-            if(exposure != null) for(int c=channel.length; --c >= 0; ) {
-                final Channel pixel = channel[c];
-                i += exposure.sampleFlag[pixel.index];
-            }
-        }
-        a = System.currentTimeMillis() - a;
-        m += i; 
-
-        // Then the ArrayList
-        i = 0;
-        long b = System.currentTimeMillis();
-        for(int k=iters; --k >= 0; )  for(Frame exposure : this) if(exposure != null) for(Channel pixel : instrument) 
-            i += exposure.sampleFlag[pixel.index];
-        b = System.currentTimeMillis() - b;
-        m += i;
-
-        // Then with two operations
-        i = 0;
-        int j=0;
-        long c = System.currentTimeMillis();
-        for(int k=iters; --k >= 0; ) for(Frame exposure : this) if(exposure != null) for(Channel pixel : instrument) {
-            i += exposure.sampleFlag[pixel.index];
-            j += i;
-        }
-        c = System.currentTimeMillis() - c;
-        m += i;
-        m += j;
-
-
-        // Then the ArrayList
-        i = 0;
-        final ArrayList<Frame> frames = new ArrayList<>();
-        final ArrayList<Channel> channels = new ArrayList<>();
-        frames.addAll(this);
-        channels.addAll(instrument);
-
-        long d = System.currentTimeMillis();
-        for(int k=iters; --k >= 0; )  for(Frame exposure : frames) if(exposure != null) for(Channel pixel : channels) 
-            i += exposure.sampleFlag[pixel.index];
-        d = System.currentTimeMillis() - d;
-        m += i;
-
-        // Then the ArrayList in inverted order
-        i = 0;
-        long e = System.currentTimeMillis();
-        for(int k=iters; --k >= 0; ) for(Channel pixel : instrument) for(Frame exposure : this) if(exposure != null) 
-            i += exposure.sampleFlag[pixel.index];
-        e = System.currentTimeMillis() - e;
-        m += i;
-
-
-        // array (inverted order)...
-        i = 0;
-        long f = System.currentTimeMillis();
-        for(int k=iters; --k >= 0; ) for(int p=channel.length; --p >= 0; ) {
-            final Channel pixel = channel[p];
-            for(int t=frame.length; --t >= 0; ) {
-                final Frame exposure = frame[t];
-                if(exposure != null) i += exposure.sampleFlag[pixel.index];
-            }
-        }
-        f = System.currentTimeMillis() - f;
-        m += i; 
-
-        long addTime = c - b;
-        a -= addTime;
-        b -= addTime;
-        d -= addTime;
-        e -= addTime;
-        f -= addTime;
-
-        DecimalFormat df = Util.f2;
-
-        CRUSH.result(this, "> " + Integer.toHexString(m) + "\n"
-                + "# array:     " + df.format((double) a/iters) + " ms\t(inverted: " + df.format((double) f/iters) + " ms)\n"
-                + "# ArrayList: " + df.format((double) b/iters) + " ms\t(inverted: " + df.format((double) e/iters) + " ms)\n"
-                + "# Vector:    " + df.format((double) d/iters) + " ms");
-
-    }
-
-
-
-
-
     public <ReturnType> ReturnType loop(final PointOp<FrameType, ReturnType> op) {
         for(FrameType frame : this) if(frame != null) {
             op.process(frame);
@@ -3687,5 +3988,11 @@ implements Comparable<Integration<FrameType>>, TableFormatter.Entries, BasicMess
 
     private static Recycler recycler = new Recycler();
 
+    /** The number of frames packed together for the blocked covariance calculation. */
+    private static final int COVARIANCE_FRAME_BLOCK = 512;
+    
+    /** The number of channels in a tile of the blocked covariance calculation. */
+    private static final int COVARIANCE_CHANNEL_TILE = 32;
+
 
 }
@@ -132,10 +132,8 @@ public class Mode implements Serializable {
     private void applyProviderGains(boolean validate) throws Exception {
         if(validate) gainProvider.validate(this);
        
-        for(int c=channels.size(); --c >= 0; ) {
-            gain[c] = (float) gainProvider.getGain(channels.get(c));
-            if(Float.isNaN(gain[c])) gain[c] = 0.0F;
-        }
+        gainProvider.getGains(channels, gain);
+        for(int c=gain.length; --c >= 0; ) if(Float.isNaN(gain[c])) gain[c] = 0.0F;
     }
     
     /**
@@ -175,7 +173,7 @@ public class Mode implements Serializable {
     // Return true if flagging...
     public boolean setGains(float[] gain, boolean flagNormalized) throws Exception {
         if(gainProvider == null) this.gain = gain;
-        else for(int c=channels.size(); --c>=0; ) gainProvider.setGain(channels.get(c), gain[c]);
+        else gainProvider.setGains(channels, gain);
         return flagGains(flagNormalized);
     }
 
@@ -54,7 +54,18 @@ public class PhaseData implements Serializable {
 		return end.index - start.index > 0;
 	}
 	
-	public void update(final ChannelGroup<?> channels, final Dependents parms) {
+	/**
+	 * Updates the offsets of this phase for the given channels, and removes the increments from the frames of 
+	 * the phase. Only the frames of this phase are accessed, and their dependents updated, so different phases
+	 * can be updated concurrently. The channel dependents, which are shared by all phases, are accumulated into 
+	 * the supplied array instead (if not <code>null</code>), for the caller to apply.
+	 * 
+	 * @param channels		The channels to update.
+	 * @param parms			The dependents of the phase offsets.
+	 * @param channelParms	The array (indexed by channel index) in which to accumulate the channel dependents, 
+	 * 						or <code>null</code> if these are not needed.
+	 */
+	public void update(final ChannelGroup<?> channels, final Dependents parms, final float[] channelParms) {
 		if(end.index - start.index < 1) return;	
 		
 		final int nc = integration.getInstrument().size();
@@ -67,54 +78,50 @@ public class PhaseData implements Serializable {
 		final int to = end.index + 1;
 		final int skipSamples = Frame.SAMPLE_SPIKE | Frame.SAMPLE_SKIP;
 		
-		parms.clear(channels, start.index, to);
+		// The offset increments, by channel index...
+		final float[] increment = new float[nc];
+		
+		parms.clearFrames(start.index, to);
 			
-		channels.new Fork<Void>() {
-			@Override
-			protected void process(final Channel channel) {			    
-				double sum = 0.0, sumw = 0.0;
+		for(final Channel channel : channels) {
+			double sum = 0.0, sumw = 0.0;
+			
+			for(int t=start.index; t<to; t++) {
+				final Frame exposure = integration.get(t);
 				
-				for(int t=start.index; t<to; t++) {
-					final Frame exposure = integration.get(t);
-					
-					if(exposure == null) continue;
-					if(exposure.isFlagged(Frame.MODELING_FLAGS)) continue;
-					if((exposure.sampleFlag[channel.index] & skipSamples) != 0) continue;
-					
-					sum += exposure.relativeWeight * exposure.data[channel.index];
-					sumw += exposure.relativeWeight;
-				}
+				if(exposure == null) continue;
+				if(exposure.isFlagged(Frame.MODELING_FLAGS)) continue;
+				if((exposure.sampleFlag[channel.index] & skipSamples) != 0) continue;
 				
-				if(sumw > 0.0) {
-				    parms.addAsync(channel, 1.0);
-					float increment = (float) (sum / sumw);
-					channel.temp = increment;    
-					value[channel.index] += increment;
-					weight[channel.index] = (float) sumw;
-				}
+				sum += exposure.relativeWeight * exposure.data[channel.index];
+				sumw += exposure.relativeWeight;
 			}
-		}.process();
-		
+			
+			if(sumw > 0.0) {
+				if(channelParms != null) channelParms[channel.index] += 1.0F;
+				increment[channel.index] = (float) (sum / sumw);
+				value[channel.index] += increment[channel.index];
+				weight[channel.index] = (float) sumw;
+			}
+		}
 		
 		// Remove the incremental phase offset from the integration...
-		new Fork<Void>() {
-			@Override
-			protected void processFrame(Frame exposure) {
-				final boolean frameUsed = exposure.isUnflagged(Frame.MODELING_FLAGS);
-				
-				for(Channel channel : channels) {
-					exposure.data[channel.index] -= channel.temp;
-					if(frameUsed) if((exposure.sampleFlag[channel.index] & skipSamples) == 0)					
-						parms.addAsync(exposure, exposure.relativeWeight / weight[channel.index]); 
-				}
-			}
+		for(int t=start.index; t<to; t++) {
+			final Frame exposure = integration.get(t);
+			if(exposure == null) continue;
 			
-		}.process();
-		
+			final boolean frameUsed = exposure.isUnflagged(Frame.MODELING_FLAGS);
+			
+			for(final Channel channel : channels) {
+				exposure.data[channel.index] -= increment[channel.index];
+				if(frameUsed) if((exposure.sampleFlag[channel.index] & skipSamples) == 0)					
+					parms.addAsync(exposure, exposure.relativeWeight / weight[channel.index]); 
+			}
+		}
 		
 		for(final Channel channel : channels) weight[channel.index] *= channel.weight;
 		
-		parms.apply(channels, start.index, to);		
+		parms.applyFrames(start.index, to);		
 	}
 	
 	public final WeightedPoint getValue(final Channel channel) {
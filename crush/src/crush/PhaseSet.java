@@ -81,7 +81,11 @@ public abstract class PhaseSet extends ArrayList<PhaseData> {
     
     public void deriveRelativeChannelWeights() {
         getIntegration().comments.append(",P");
-        for(Channel channel : getInstrument()) deriveRelativeWeightFor(channel); 
+        
+        getInstrument().new Fork<Void>() {
+            @Override
+            protected void process(Channel channel) { deriveRelativeWeightFor(channel); }
+        }.process();
     }
     
     
@@ -111,11 +115,36 @@ public abstract class PhaseSet extends ArrayList<PhaseData> {
         return phaseDeps.containsKey(name) ? phaseDeps.get(name) : new PhaseDependents(this, name);
     }
 
-    public void update(ChannelGroup<?> channels) {
+    public void update(final ChannelGroup<?> channels) {
         integration.comments.append(":P");
 
-        for(PhaseData phase : this)
-            phase.update(channels, integrationDeps);	
+        // The channel dependents are those of the last phase with data, same as if the phases were updated one 
+        // after the other, each replacing the channel dependents of the one before...
+        int last = -1;
+        for(int i=size(); --i >= 0; ) if(get(i).end.index - get(i).start.index >= 1) {
+            last = i;
+            break;
+        }
+        
+        if(last >= 0) {
+            final int lastPhase = last;
+            final float[] channelParms = new float[getInstrument().size()];
+            
+            integrationDeps.clearChannels(channels);
+            
+            // The phases cover separate frames, so they can be updated concurrently...
+            new CRUSH.Fork<Void>(size(), integration.getThreadCount()) {
+                @Override
+                protected void processIndex(int index) {
+                    get(index).update(channels, integrationDeps, index == lastPhase ? channelParms : null);
+                }
+            }.process();
+            
+            for(Channel channel : channels) if(channelParms[channel.index] != 0.0F) 
+                integrationDeps.addAsync(channel, channelParms[channel.index]);
+            
+            integrationDeps.applyChannels(channels);
+        }
         
         deriveRelativeChannelWeights();
         
@@ -25,10 +25,8 @@ package crush;
 
 
 
-import java.util.Collection;
-import java.util.HashSet;
 
-import crush.instrument.Overlap;
+import crush.instrument.OverlapList;
 import jnum.Constant;
 import jnum.Unit;
 import jnum.Util;
@@ -72,7 +70,7 @@ public class Pixel extends ChannelGroup<Channel> implements Metric<Pixel> {
     
     public double coupling = 1.0;
     
-    private transient Collection<Overlap<Pixel>> overlaps;  // Don't copy...
+    private transient OverlapList<Pixel> overlaps;  // Don't copy...
     
 
     /**
@@ -361,18 +359,17 @@ public class Pixel extends ChannelGroup<Channel> implements Metric<Pixel> {
     }
     
     
-    public Collection<Overlap<Pixel>> getOverlaps() { return overlaps; }
+    public OverlapList<Pixel> getOverlaps() { return overlaps; }
     
-    public void setOverlaps(Collection<Overlap<Pixel>> overlaps) { this.overlaps = overlaps; }
+    public void setOverlaps(OverlapList<Pixel> overlaps) { this.overlaps = overlaps; }
     
     public void clearOverlaps() {
         if(overlaps != null) overlaps.clear();
     }
     
-    public synchronized void addOverlap(Overlap<Pixel> overlap) {
-        if(overlap.a != this && overlap.b != this) return;
-        if(overlaps == null) overlaps = new HashSet<>();
-        overlaps.add(overlap);      
+    public void addOverlap(Pixel other, double overlap) {
+        if(overlaps == null) overlaps = new OverlapList<>();
+        overlaps.add(other, overlap);      
     }
     
     public void validate() {
@@ -0,0 +1,147 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 
+ * Writes output products in the background, s.t. file I/O (and formatting) can overlap with ongoing reduction work. 
+ * Products are written in order of submission, by a single (daemon) thread. Each product should hold its own 
+ * snapshot of the data it writes (e.g. a FITS object, or freshly calculated arrays), rather than referencing live 
+ * data that may change while the product is pending. 
+ * <p>
+ * 
+ * The number of pending products is bounded. Submitting a product when the queue is full blocks until a slot becomes 
+ * available (back-pressure), so that snapshots cannot pile up in memory when writing is slower than the reduction.
+ * Call {@link #flush()} to wait for all pending products to complete, e.g. before exiting.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class ProductWriter {
+    private ExecutorService executor;
+    private Semaphore slots;
+    private LinkedList<Future<?>> pending = new LinkedList<>();
+
+    /**
+     * Constructs a new background writer.
+     * 
+     * @param capacity  The maximum number of products that may be pending (queued or being written) at any time.
+     */
+    public ProductWriter(int capacity) {
+        slots = new Semaphore(Math.max(1, capacity));
+        
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "crush-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+    
+    /**
+     * Submits a product for writing in the background. The call blocks while the maximum number of products are 
+     * already pending. Errors while writing are reported on behalf of the owner.
+     * 
+     * @param owner     The object on behalf of which the product is written (for messaging).
+     * @param product   The product to write.
+     */
+    public void submit(final Object owner, final Product product) {
+        try { slots.acquire(); }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        
+        Future<?> future = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try { product.write(); }
+                catch(Exception e) { CRUSH.error(owner, e); }
+                finally { slots.release(); }
+            }
+        });
+        
+        synchronized(pending) {
+            pending.add(future);
+            // Discard the futures of products that have completed already...
+            while(!pending.isEmpty() && pending.getFirst().isDone()) pending.removeFirst();
+        }
+    }
+    
+    /**
+     * Waits until all products submitted so far have been written.
+     */
+    public void flush() {
+        for(;;) {
+            Future<?> future = null;
+            synchronized(pending) {
+                if(pending.isEmpty()) return;
+                future = pending.removeFirst();
+            }
+            
+            try { future.get(); }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch(ExecutionException e) { CRUSH.error(this, e.getCause()); }
+        }
+    }
+    
+    /**
+     * Writes all pending products, and then releases the writer thread. No new products may be submitted after this 
+     * call.
+     */
+    public void shutdown() {
+        flush();
+        executor.shutdown();
+    }
+    
+    
+    /**
+     * A product that can be written by a {@link ProductWriter}.
+     * 
+     * @author Attila Kovacs <attila@sigmyne.com>
+     *
+     */
+    public interface Product {
+        
+        /**
+         * Writes the product.
+         * 
+         * @throws Exception    If the product could not be written.
+         */
+        public void write() throws Exception;
+    }
+}
@@ -30,6 +30,8 @@ import crush.sourcemodel.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.function.IntConsumer;
 import jnum.Configurator;
 import jnum.ExtraMath;
 import jnum.LockedException;
@@ -228,6 +230,72 @@ extends Vector<IntegrationType> implements Comparable<Scan<?>>, TableFormatter.E
     // Read should validate the instrument before instantiating integrations for reading...
     public abstract void read(String descriptor, boolean readFully) throws Exception;
 
+    /**
+     * Returns the data file that would be read for the given scan descriptor, if it can be determined without 
+     * actually reading the scan (e.g. for identifying scans in the {@link ScanCache}). 
+     * 
+     * @param descriptor    The scan descriptor, as would be used for reading the scan.
+     * @return              The data file, or <code>null</code> if it cannot be determined.
+     */
+    public File getDataFile(String descriptor) {
+        File file = new File(descriptor);
+        return file.exists() ? file : null;
+    }
+
+    /**
+     * Returns the number of integrations (subscans) that may be read concurrently, as set by the 
+     * <code>subscans.parallel</code> option. 
+     * 
+     * @return  The maximum number of integrations to read at once (1 if reading should be sequential).
+     */
+    public int getParallelReads() {
+        if(!hasOption("subscans.parallel")) return 1;
+        try { return Math.max(1, option("subscans.parallel").getInt()); }
+        catch(NumberFormatException e) { return CRUSH.maxThreads; }
+    }
+
+    /**
+     * Reads integrations (e.g. the subscans of a scan, from their separate files) concurrently, on a bounded number 
+     * of reader threads, and adds them to this scan in the order of the readers, so the result does not depend on the 
+     * order in which the reads complete. The number of reader threads (see {@link #getParallelReads()}) also caps the
+     * number of integrations whose raw data is being read into memory at any one time.
+     * 
+     * @param readers       The readers, one per integration, each returning the integration read, or <code>null</code> 
+     *                      if the integration should be skipped.
+     * @throws Exception    The first exception (in order) thrown by any of the readers.
+     */
+    protected void readIntegrations(List<Callable<IntegrationType>> readers) throws Exception {
+        final int threads = Math.min(getParallelReads(), readers.size());
+
+        if(threads < 2) {
+            for(Callable<IntegrationType> reader : readers) {
+                IntegrationType integration = reader.call();
+                if(integration != null) add(integration);
+            }
+            return;
+        }
+
+        final ArrayList<IntegrationType> results = new ArrayList<>(Collections.nCopies(readers.size(), (IntegrationType) null));
+        final Exception[] errors = new Exception[readers.size()];
+
+        // Readers decode their data with tasks on the shared executor, so they run on their own threads...
+        CRUSH.Fork<Void> fork = new CRUSH.Fork<Void>(readers.size(), threads) {
+            @Override
+            protected void processIndex(int i) {
+                try { results.set(i, readers.get(i).call()); }
+                catch(Exception e) { errors[i] = e; }
+            }
+        };
+        fork.process(threads, null);
+
+        if(fork.hasException()) throw fork.getLastException();
+
+        for(int i=0; i < readers.size(); i++) {
+            if(errors[i] != null) throw errors[i];
+            if(results.get(i) != null) add(results.get(i));
+        }
+    }
+
     // The integration should carry a copy of the instrument s.t. the integration can freely modify it...
     // The constructor of Integration thus copies the Scan instrument for private use...
     public abstract IntegrationType getIntegrationInstance();
@@ -248,14 +316,16 @@ extends Vector<IntegrationType> implements Comparable<Scan<?>>, TableFormatter.E
         final double maxDiscontinuity = hasOption("subscans.merge.maxgap") ? option("subscans.merge.maxgap").getDouble() * Unit.s : Double.NaN;
         final int maxGap = Double.isNaN(maxDiscontinuity) ? Integer.MAX_VALUE : (int) Math.ceil(maxDiscontinuity / instrument.samplingInterval);
 
-        Integration<Frame> merged = (Integration<Frame>) get(0);
-        merged.trimEnd();
-
-        double lastMJD = merged.getLastFrame().MJD;
+        final int n = size();
+        final int[] start = new int[n];
+        final int[] gap = new int[n];
+        final boolean[] isNewPart = new boolean[n];
 
-        ArrayList<IntegrationType> parts = new ArrayList<>();
+        get(0).trimEnd();
+        double lastMJD = get(0).getLastFrame().MJD;
 
-        for(int i=1; i<size(); i++) {
+        // Lay out the merge first, so that each merged integration can be sized just once...
+        for(int i=1; i<n; i++) {
             IntegrationType integration = get(i);
 
             // Remove null frames from the end;
@@ -264,30 +334,48 @@ extends Vector<IntegrationType> implements Comparable<Scan<?>>, TableFormatter.E
             // Skip null frames at the beginning...
             final int nt = integration.size();
             int from = 0;
-            for( ; from < nt; from++) if(integration.get(from) != null) break;			
+            for( ; from < nt; from++) if(integration.get(from) != null) break;	
+            start[i] = from;
+
+            if(from == nt) continue;
 
-            int gap = (int) Math.round((integration.get(from).MJD - lastMJD) * Unit.day / instrument.samplingInterval) - 1;
+            int frames = (int) Math.round((integration.get(from).MJD - lastMJD) * Unit.day / instrument.samplingInterval) - 1;
 
             // Deal with any gaps between subscans here...
-            if(gap > 0) {
-                if(gap < maxGap) {
-                    info("  > Padding with " + gap + " frames before integration " + integration.getID());
-                    for(; --gap >= 0; ) merged.add(null);
+            if(frames > 0) {
+                if(frames < maxGap) {
+                    info("  > Padding with " + frames + " frames before integration " + integration.getID());
+                    gap[i] = frames;
                 }
                 else {
                     info("  > Large gap before integration " + integration.getID() + ". Starting new merge.");
-                    parts.add((IntegrationType) merged);
-                    merged = (Integration<Frame>) integration;
+                    isNewPart[i] = true;
                 }	
             }
 
-            // Do the actual merge...
-            for(int t=from; t<nt; t++) merged.add(integration.get(t));
-
             lastMJD = integration.getLastFrame().MJD;
         }
 
-        merged.reindex();
+        // Then append the frame blocks (and gaps) in bulk...
+        ArrayList<IntegrationType> parts = new ArrayList<>();
+        Integration<Frame> merged = null;
+
+        for(int i=0; i<n; i++) {
+            IntegrationType integration = get(i);
+
+            if(merged == null || isNewPart[i]) {
+                if(merged != null) parts.add((IntegrationType) merged);
+                merged = (Integration<Frame>) integration;
+
+                int capacity = merged.size();
+                for(int j=i+1; j<n && !isNewPart[j]; j++) capacity += gap[j] + get(j).size() - start[j];
+                merged.ensureCapacity(capacity);
+                continue;
+            }
+
+            merged.addGap(gap[i]);
+            merged.addFrames(integration.subList(start[i], integration.size()));
+        }
 
         info("  > Total esposure time: " + Util.f1.format(merged.getExposureTime() / Unit.s) + "s.");
 
@@ -561,14 +649,35 @@ extends Vector<IntegrationType> implements Comparable<Scan<?>>, TableFormatter.E
 
         if(gains.hasOption("estimator")) if(gains.option("estimator").is("median")) isRobust = true; 
 
-        Hashtable<Integer, WeightedPoint[]> phaseGains = new Hashtable<>();
+        final Hashtable<Integer, WeightedPoint[]> phaseGains = new Hashtable<>();
 
         final boolean usePhases = hasOption("correlated." + modalityName + ".phasegains");
+        final boolean robust = isRobust;
 
-        // Derive the scan gains
+        // Derive the gains of each integration separately (and concurrently)...
+        final WeightedPoint[][] integrationGains = new WeightedPoint[size()][];
+
+        processIntegrations(new IntConsumer() {
+            @Override
+            public void accept(int i) {
+                final IntegrationType integration = get(i);
+
+                try {		
+                    Modality<?> modality = integration.getInstrument().modalities.get(modalityName);
+                    if(modality.trigger != null) if(!hasOption(modality.trigger)) return;
+
+                    final WeightedPoint[] G = WeightedPoint.createArray(instrument.storeChannels);
+                    modality.averageGains(G, integration, robust);
+                    integrationGains[i] = G;
+                }	
+                catch(Exception e) { error(e); }	
+            }
+        });
+
+        // Then combine them into the scan gains of each phase, in integration order, for a deterministic result.
         boolean gotGains = false;
-        for(IntegrationType integration : this) {
-            final int phase = usePhases ? integration.getPhase() : 0;
+        for(int i=0; i < size(); i++) {
+            final int phase = usePhases ? get(i).getPhase() : 0;
             WeightedPoint[] G = phaseGains.get(phase);
 
             if(G == null) {
@@ -576,13 +685,11 @@ extends Vector<IntegrationType> implements Comparable<Scan<?>>, TableFormatter.E
                 phaseGains.put(phase, G);
             }
 
-            try {		
-                Modality<?> modality = integration.getInstrument().modalities.get(modalityName);
-                if(modality.trigger != null) if(!hasOption(modality.trigger)) continue;
-                modality.averageGains(G, integration, isRobust);
-                gotGains = true;
-            }	
-            catch(Exception e) { error(e); }	
+            final WeightedPoint[] integrationG = integrationGains[i];
+            if(integrationG == null) continue;
+
+            for(int c=G.length; --c >= 0; ) G[c].average(integrationG[c]);
+            gotGains = true;
         }
 
         if(!gotGains) return;
@@ -594,38 +701,96 @@ extends Vector<IntegrationType> implements Comparable<Scan<?>>, TableFormatter.E
         }
 
         // Apply the gain increment
-        for(IntegrationType integration : this) {
-            Modality<?> modality = integration.getInstrument().modalities.get(modalityName);
-            boolean isFlagging = false; 
+        processIntegrations(new IntConsumer() {
+            @Override
+            public void accept(int i) {
+                final IntegrationType integration = get(i);
+                Modality<?> modality = integration.getInstrument().modalities.get(modalityName);
+                boolean isFlagging = false; 
 
-            WeightedPoint[] G = phaseGains.get(usePhases ? integration.getPhase() : 0);
+                WeightedPoint[] G = phaseGains.get(usePhases ? integration.getPhase() : 0);
 
-            try { isFlagging |= modality.applyGains(G, integration); }
-            catch(Exception e) { error(e); }
+                try { isFlagging |= modality.applyGains(G, integration); }
+                catch(Exception e) { error(e); }
 
-            if(isFlagging) {
-                integration.getInstrument().census();
-                integration.comments.append(integration.getInstrument().mappingChannels);
+                if(isFlagging) {
+                    integration.getInstrument().census();
+                    integration.comments.append(integration.getInstrument().mappingChannels);
+                }
             }
-        }
+        });
     }
 
     public void processPhaseGains(Hashtable<Integer, WeightedPoint[]> phaseGains) throws Exception {}
 
-    public void decorrelate(String modalityName) {
+    public void decorrelate(final String modalityName) {
         boolean isRobust = false;
         if(hasOption("estimator")) if(option("estimator").is("median")) isRobust = true;
 
+        final boolean robust = isRobust;
+
         if(hasOption("correlated." + modalityName + ".span")) {
-            for(IntegrationType integration : this) integration.decorrelateSignals(modalityName, isRobust);
+            processIntegrations(new IntConsumer() {
+                @Override
+                public void accept(int i) { get(i).decorrelateSignals(modalityName, robust); }
+            });
             updateGains(modalityName);
         }
-        else for(IntegrationType integration : this) integration.decorrelate(modalityName, isRobust);
+        else processIntegrations(new IntConsumer() {
+            @Override
+            public void accept(int i) { get(i).decorrelate(modalityName, robust); }
+        });
 
         for(IntegrationType integration : this) if(integration.comments.charAt(integration.comments.length() - 1) != ' ') 
             integration.comments.append(" ");
     }
 
+    /**
+     * Returns the number of integrations that may be processed concurrently by {@link #processIntegrations(IntConsumer)}.
+     * It is the same as the number of threads allotted to each integration, since the parallel tasks of the 
+     * integrations all share the same global executor anyway. 
+     * 
+     * @return  The maximum number of integrations to process at once (1 if they should be processed one by one).
+     */
+    public int getIntegrationParallelism() {
+        return isEmpty() ? 1 : Math.max(1, get(0).getThreadCount());
+    }
+
+    /**
+     * Performs a task on each integration in this scan, processing up to {@link #getIntegrationParallelism()} 
+     * integrations concurrently. The task should only modify the state of the integration it is called for, or else 
+     * per-integration slots (e.g. an array element at the integration's index) that are combined in order afterwards.
+     * 
+     * @param task          The task, which is called with the index of each integration in this scan.
+     * @throws RuntimeException   The first runtime exception (in integration order) thrown by the task, if any.
+     */
+    protected void processIntegrations(final IntConsumer task) {
+        final int threads = Math.min(size(), getIntegrationParallelism());
+
+        if(threads < 2) {
+            for(int i=0; i < size(); i++) task.accept(i);
+            return;
+        }
+
+        final RuntimeException[] errors = new RuntimeException[size()];
+
+        // The integrations run their own parallel tasks on the shared executor. Dispatching the integrations onto the
+        // same executor could occupy all of its threads with tasks that wait for queued ones, so they run on their 
+        // own threads instead (as the pipelines do)...
+        CRUSH.Fork<Void> fork = new CRUSH.Fork<Void>(size(), threads) {
+            @Override
+            protected void processIndex(int i) {
+                try { task.accept(i); }
+                catch(RuntimeException e) { errors[i] = e; }
+            }
+        };
+        fork.process(threads, null);
+
+        if(fork.hasException()) throw new IllegalStateException(fork.getLastException());
+
+        for(RuntimeException e : errors) if(e != null) throw e;
+    }
+
     public void perform(String task) { 
         if(task.startsWith("correlated.")) decorrelate(task.substring(task.indexOf('.')+1));
         else for(IntegrationType integration : this) integration.perform(task);
@@ -867,7 +1032,10 @@ extends Vector<IntegrationType> implements Comparable<Scan<?>>, TableFormatter.E
         int nT = merged.framesFor(segmentTime);
         int N = ExtraMath.roundupRatio(merged.size(), nT);
 
-        if(N <= 1) return;
+        if(N <= 1) {
+            add(merged);
+            return;
+        }
 
         ensureCapacity(N);
 
@@ -875,16 +1043,20 @@ extends Vector<IntegrationType> implements Comparable<Scan<?>>, TableFormatter.E
 
         clear();
 
+        // Detach the frames, so that the segments are cloned from an empty integration...
+        final List<Frame> frames = new ArrayList<>(merged);
+        merged.clear();
+        merged.trimToSize();
+
         for(int i=0, t=0; i<N; i++) {
             Integration<Frame> integration = (Integration<Frame>) merged.cloneWithCopyOf(merged.getInstrument());
-            integration.clear();
             integration.integrationNo = i;
-            
-            int nk = Math.min(merged.size() - t, nT);
+
+            int nk = Math.min(frames.size() - t, nT);
             integration.ensureCapacity(nk);
+            integration.addFrames(frames.subList(t, t + nk));
+            t += nk;
 
-            for(int k=0; k<nk; k++,t++) integration.add(merged.get(t));
-            integration.reindex();
             add((IntegrationType) integration);
         }
     }
@@ -0,0 +1,225 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jnum.Configurator;
+
+/**
+ * 
+ * A local cache of scans that have been read and validated already. Repeat reductions of the same data can load 
+ * scans directly from the cache, skipping the parsing, conversion, flagging, validation and downsampling of the
+ * raw data. Scans are stored in compact (compressed, serialized binary) form, keyed by a hash of the input file 
+ * (its location, size and modification time) and the configuration options in effect when reading. 
+ * <p>
+ * 
+ * Options that do not affect how scans are read and validated (e.g. output settings, or map-making options) may be 
+ * excluded from the key by listing their top-level names under <code>cache.ignore</code>, s.t. changing them does not 
+ * invalidate the cached scans. The current values of the ignored options are applied to scans loaded from the cache.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class ScanCache {
+    private Instrument<?> instrument;
+    private File directory;
+    private Set<String> ignore = new HashSet<>();
+
+    public ScanCache(Instrument<?> instrument) {
+        this.instrument = instrument;
+        
+        final Configurator options = instrument.getOptions();
+        
+        String path = options.option("cache").getValue();
+        if(path.isEmpty()) directory = new File(System.getProperty("user.home") + File.separator + ".crush2" + File.separator + "cache");
+        else directory = new File(options.option("cache").getPath());
+        
+        if(options.hasOption("cache.ignore")) for(String name : options.option("cache.ignore").getList()) 
+            ignore.add(name.trim().toLowerCase());
+    }
+    
+    public File getDirectory() { return directory; }
+
+    /**
+     * Returns the key under which a scan, specified by the same descriptor as used for reading, would be cached given 
+     * the current options. Scans can be cached only if their data file is known before reading (see 
+     * {@link Scan#getDataFile(String)}), since the key must change whenever the data does. Otherwise, the same 
+     * descriptor (e.g. a scan number) could refer to different or updated data, and a cached scan could be stale.
+     * 
+     * @param descriptor    The scan descriptor (e.g. scan number or file name).
+     * @return              The cache key (a hexadecimal hash string) for the scan, or <code>null</code> if the scan
+     *                      cannot be cached, because its data file is not known.
+     */
+    public String getKey(String descriptor) {
+        final MessageDigest md;
+        
+        try { md = MessageDigest.getInstance("SHA-256"); }
+        catch(NoSuchAlgorithmException e) { throw new IllegalStateException(e); }
+        
+        final File file = instrument.getScanInstance().getDataFile(descriptor);
+        if(file == null) return null;
+        if(!file.exists()) return null;
+        
+        update(md, "crush-scan-cache " + FORMAT_VERSION + " " + CRUSH.getFullVersion());
+        update(md, instrument.getName());
+        update(md, descriptor);
+        
+        try { update(md, file.getCanonicalPath()); }
+        catch(IOException e) { update(md, file.getAbsolutePath()); }
+        update(md, file.length() + " " + file.lastModified());
+        
+        digest(md, instrument.getOptions(), "");
+        
+        final StringBuilder key = new StringBuilder();
+        for(byte b : md.digest()) key.append(String.format("%02x", b & 0xff));
+        return key.toString();
+    }
+
+    private void digest(MessageDigest md, Configurator options, String prefix) {
+        for(String name : new TreeSet<>(options.branches.keySet())) {
+            if(prefix.isEmpty() && ignore.contains(name)) continue;
+            if(!options.hasOption(name)) continue;
+            
+            final Configurator branch = options.branches.get(name);
+            update(md, prefix + name + "=" + branch.getValue());
+            digest(md, branch, prefix + name + ".");
+        }
+        
+        if(options.conditionals != null) for(String condition : new TreeSet<>(options.conditionals.keySet())) {
+            if(prefix.isEmpty() && ignore.contains(condition)) continue;
+            update(md, prefix + "[" + condition + "] " + options.conditionals.get(condition));
+        }
+    }
+    
+    private static void update(MessageDigest md, String value) {
+        md.update(value.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) '\n');
+    }
+
+    private File getFile(String key) {
+        return new File(directory, instrument.getName() + "-" + key + ".scan.gz");
+    }
+
+    /**
+     * Loads a scan from the cache, if available. 
+     * 
+     * @param key       The cache key, as returned by {@link #getKey(String)}.
+     * @return          The cached scan, or <code>null</code> if the scan is not in the cache, or it could not be loaded.
+     */
+    public Scan<?> get(String key) {
+        final File file = getFile(key);
+        if(!file.exists()) return null;
+        
+        try(ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE)))) {
+            if(!key.equals(in.readUTF())) throw new InvalidObjectException("Cache key mismatch.");
+            
+            final Scan<?> scan = (Scan<?>) in.readObject();
+            updateOptions(scan);
+            
+            CRUSH.info(this, "Loaded scan from cache: " + file.getName());
+            return scan;
+        }
+        catch(Exception e) {
+            // Stale or incompatible entries (e.g. from another version of CRUSH) are simply discarded...
+            CRUSH.warning(this, "Discarding unreadable cache entry " + file.getName() + ": " + e.getMessage());
+            if(CRUSH.debug) CRUSH.trace(e);
+            file.delete();
+            return null;
+        }
+    }
+    
+    /**
+     * Stores a validated scan in the cache. Failures are reported but are otherwise harmless, i.e. the reduction
+     * can proceed without the scan being cached.
+     * 
+     * @param key       The cache key, as returned by {@link #getKey(String)}.
+     * @param scan      The validated scan.
+     */
+    public void put(String key, Scan<?> scan) {
+        if(!directory.exists()) if(!directory.mkdirs()) {
+            CRUSH.warning(this, "Cannot create cache directory " + directory);
+            return;
+        }
+        
+        final File file = getFile(key);
+        File temp = null;
+        
+        try {
+            temp = File.createTempFile(file.getName(), ".part", directory);
+            
+            try(ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FastGZIPOutputStream(new FileOutputStream(temp))))) {
+                out.writeUTF(key);
+                out.writeObject(scan);
+            }
+            
+            try { Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING); }
+            catch(IOException e) { Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING); }
+            
+            CRUSH.info(this, "Cached scan as " + file.getName());
+        }
+        catch(IOException e) {
+            CRUSH.warning(this, "Could not cache scan: " + e.getMessage());
+            if(CRUSH.debug) CRUSH.trace(e);
+            if(temp != null) temp.delete();
+        }
+    }
+    
+    // Applies the current values of the ignored options to the scan and its integrations...
+    private void updateOptions(Scan<?> scan) {
+        update(scan.getInstrument().getOptions());
+        for(Integration<?> integration : scan) update(integration.getInstrument().getOptions());
+    }
+    
+    private void update(Configurator options) {
+        if(options == null) return;
+        
+        final Configurator current = instrument.getOptions();
+        
+        for(String name : ignore) {
+            options.branches.remove(name);
+            if(current.branches.containsKey(name)) options.branches.put(name, current.branches.get(name).copy());
+        }
+    }
+    
+    private static class FastGZIPOutputStream extends GZIPOutputStream {
+        FastGZIPOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+    
+    
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+}
@@ -57,11 +57,16 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
 
     boolean dft = false;
     boolean isEnabled = false;
+    boolean isCompounded = false;  // whether applied as part of a MultiFilter, which transforms the spectrum itself
 
     boolean isPedantic = false;
 
     private float[] data;
     private float[] pointResponse;
+    private float[] upstreamResponse;
+
+    private int[] dftBins;
+    private double[] dftRejection;
 
     public Filter(Integration<?> integration) {
         setIntegration(integration);
@@ -79,6 +84,7 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
             if(channels != null) clone.channels = (ChannelGroup<?>) channels.clone();
             clone.data = null;
             clone.frameParms = null;
+            clone.upstreamResponse = null;
             return clone;
         } catch(CloneNotSupportedException e) { return null; }
     }
@@ -119,6 +125,19 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
 
     public float[] getTempData() { return data; }
 
+    /**
+     * Returns the combined response of the filters that were applied to the spectrum before this one, e.g. when part
+     * of a {@link MultiFilter} chain, for frequency channels 0 to <code>nf</code>. Filters that estimate the spectrum
+     * from the timestream before it was filtered (such as Welch estimates) should apply this response to their
+     * estimates.
+     * 
+     * @return      the upstream response by frequency channel, or <code>null</code> if this filter is applied first
+     *              or by itself.
+     */
+    protected float[] getUpstreamResponse() { return upstreamResponse; }
+
+    void setUpstreamResponse(float[] response) { this.upstreamResponse = response; }
+
     public void setTempData(float[] data) { this.data = data; }
 
     public abstract String getID();
@@ -128,7 +147,20 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
     protected abstract double responseAt(int fch);
 
     protected double countParms() {
-        return IntStream.range(getHipassIndex(), nf).parallel().mapToDouble(f -> rejectionAt(f)).sum();
+        return IntStream.range(getHipassIndex(), nf).parallel().mapToDouble(f -> 1.0 - appliedResponseAt(f)).sum();
+    }
+
+    /**
+     * Returns the response that is actually applied to the data at the given frequency channel. It is the same as
+     * {@link #responseAt(int)}, unless the filter is implemented only approximately (e.g. segmented filtering with a
+     * truncated kernel), in which case the parameter counting and the source filtering correction should use the
+     * approximate response instead.
+     * 
+     * @param fch   the frequency channel index.
+     * @return      the response actually applied at that frequency.
+     */
+    protected double appliedResponseAt(int fch) {
+        return responseAt(fch);
     }
     
     protected final double getPointResponse(Channel channel) {
@@ -190,6 +222,9 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
         isPedantic = integration.hasOption("filter.mrproper");
     }
 
+    // Allows to sample the channel timestream just before it is Fourier transformed
+    protected void preTransform(Channel channel) {}
+
     // Allows to adjust the FFT filter after the channel spectrum has been loaded
     protected void updateProfile(Channel channel) {}
 
@@ -277,6 +312,12 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
     protected void preFilter() {
         if(parms == null) parms = integration.getDependents(getConfigName());
         parms.clear(getChannels(), 0, integration.size());
+
+        if(dft) {
+            dftBins = getRejectedBins();
+            dftRejection = new double[dftBins.length];
+            for(int i=dftBins.length; --i >= 0; ) dftRejection[i] = rejectionAt(dftBins[i]);
+        }
     }
 
     protected void postFilter() {
@@ -346,6 +387,8 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
         // Pad with zeroes as necessary...
         Arrays.fill(data, integration.size(), data.length, 0.0F);
 
+        preTransform(channel);
+
         integration.getFFT().real2Amplitude(data);
 
         updateProfile(channel);
@@ -360,17 +403,21 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
 
     // Convert data into a rejected signal (unlevelled)
     protected void dftFilter(Channel channel) {
-        // TODO make rejected a private field, initialize or throw away as needed (setDFT())
-        float[] rejected = new float[integration.size()];
+        // Each channel accumulates its rejected signal in its own array, so channels may be filtered concurrently...
+        final int n = integration.size();
+        final float[] rejected = integration.getFloats();
+        Arrays.fill(rejected, 0, n, 0.0F);
 
-        IntStream.rangeClosed(0, nf).parallel().forEach(f -> { 
-            double r = rejectionAt(f); 
-            if(r > 0.0) dftFilter(channel, f, r, rejected); 
-        }); 
+        SparseDFT.getRejected(data, 0, n, data.length, dftBins, dftRejection, rejected);
 
-        System.arraycopy(rejected, 0, data, 0, rejected.length);
+        System.arraycopy(rejected, 0, data, 0, n);
+        Integration.recycle(rejected);
     }
 
+    protected int[] getRejectedBins() {
+        // The DC component is never rejected (same as for FFT filtering)...
+        return IntStream.rangeClosed(1, nf).filter(f -> rejectionAt(f) > 0.0).toArray();
+    }
 
     protected int getHipassIndex() {
         double hipassf = 0.5 / integration.filterTimeScale;
@@ -406,47 +453,6 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
 
     public boolean isDFT() { return dft; }
 
-    protected void dftFilter(Channel channel, int F, double rejection, float[] rejected) {		
-        double sumc = 0.0, sums = 0.0;
-
-        if(F == 0) F = data.length >> 1;
-
-        final double theta = F * Constant.twoPi / data.length;
-        final double s0 = Math.sin(theta);
-        final double c0 = Math.cos(theta);
-
-        double c = 1.0;
-        double s = 0.0;
-
-        // 27 real ops per frequency...
-        for(int t = integration.size(); --t >= 0; ) {
-            final double x = data[t];
-
-            sumc += c * x;
-            sums += s * x;
-
-            final double temp = c;
-            c = temp * c0 - s * s0;
-            s = temp * s0 + s * c0;
-        }
-
-        final double norm = 2.0 / data.length * rejection;
-        sumc *= norm;
-        sums *= norm;
-
-        c = 1.0;
-        s = 0.0;
-
-        // 25 real ops per frequency
-        for(int t = integration.size(); --t >= 0; ) {
-            rejected[t] += c * sumc + s * sums;
-
-            final double temp = c;
-            c = temp * c0 - s * s0;
-            s = temp * s0 + s * c0;
-        }	
-    }
-
     // Get a fixed-length representation of the filter response.
     protected void getFilterResponse(float[] response) {
         final double n = (double) (nf+1) / response.length;
@@ -488,7 +494,7 @@ public abstract class Filter implements Serializable, Cloneable, CopiableContent
         double sourceNorm = sum + IntStream.rangeClosed(minf, nf).parallel().mapToDouble(f -> getSourceProfile(f, T, f0)).sum();
         
         // Calculate the true source filtering above the hipass timescale...
-        sum += IntStream.rangeClosed(minf, nf).parallel().mapToDouble(f -> getSourceProfile(f, T, f0) * responseAt(f)).sum();
+        sum += IntStream.rangeClosed(minf, nf).parallel().mapToDouble(f -> getSourceProfile(f, T, f0) * appliedResponseAt(f)).sum();
 
         return sum / sourceNorm;
     }
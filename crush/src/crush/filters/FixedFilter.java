@@ -23,9 +23,14 @@
 package crush.filters;
 
 
+import java.util.Arrays;
+
 import crush.Channel;
 import crush.Frame;
 import crush.Integration;
+import jnum.Constant;
+import jnum.ExtraMath;
+import jnum.fft.FloatFFT;
 
 public abstract class FixedFilter extends Filter {
 	/**
@@ -33,9 +38,17 @@ public abstract class FixedFilter extends Filter {
 	 */
 	private static final long serialVersionUID = 8317718290223682350L;
 	
+	public static final int DEFAULT_SEGMENT_SIZE = 4096;
+	public static final int MIN_SEGMENT_SIZE = 64;
+	
 
 	private double rejected = 0.0;
 	
+	private int segmentSize = 0;
+	private float[] segmentResponse;
+	private float[] block, pending;
+	private boolean isSegmentWarned = false;
+	
 	
 	public FixedFilter(Integration<?> integration) {
 		super(integration);
@@ -45,9 +58,53 @@ public abstract class FixedFilter extends Filter {
 		super(integration, data);
 	}
 
+	@Override
+	public FixedFilter clone() {
+		FixedFilter clone = (FixedFilter) super.clone();
+		clone.block = null;
+		clone.pending = null;
+		return clone;
+	}
+	
+	@Override
+	public void updateConfig() {
+		super.updateConfig();
+		
+		segmentSize = 0;
+		if(!hasOption("segment")) return;
+		
+		String spec = option("segment").getValue();
+		int size = spec.length() > 0 ? option("segment").getInt() : DEFAULT_SEGMENT_SIZE;
+		size = ExtraMath.pow2ceil(Math.max(MIN_SEGMENT_SIZE, size));
+		
+		// Segmenting makes sense only if the integration spans several segments...
+		if(size < nt) segmentSize = size;
+	}
+	
+	/**
+	 * Checks whether the filter is applied in segments. Segmenting applies only when this filter transforms the
+	 * data by itself. Inside a {@link MultiFilter}, the compound filter applies the exact response to the full
+	 * spectrum, whereas the sparse DFT evaluates the exact response at the rejected bins only. In either case the
+	 * segmented response must not be used for counting parameters or correcting the source filtering.
+	 * 
+	 * @return     <code>true</code> if the data are filtered via {@link #segmentedFilter(Channel)}.
+	 */
+	public boolean isSegmented() { return segmentSize > 0 && !isDFT() && !isCompounded; }
+	
+	public int getSegmentSize() { return segmentSize; }
+	
 	@Override 
 	protected void preFilter() {
 		super.preFilter();
+		
+		if(segmentSize > 0 && !isSegmented() && !isSegmentWarned) {
+			integration.warning("Ignoring '" + getConfigName() + ".segment': " 
+					+ (isDFT() ? "sparse DFT is used." : "applied as part of a compound filter."));
+			isSegmentWarned = true;
+		}
+		
+		// The segment response must be up to date before counting the rejected parameters...
+		if(isSegmented()) updateSegmentResponse();
 		rejected = countParms();
 	}
 	
@@ -78,6 +135,130 @@ public abstract class FixedFilter extends Filter {
 		if(points > 0.0 && frameParms != null) addFrameParms(channel);
 	}
 	
+	@Override
+	protected void fftFilter(Channel channel) {
+		if(isSegmented()) segmentedFilter(channel);
+		else super.fftFilter(channel);
+	}
+	
+	/**
+	 * Returns the response of the segmented filter (if segmented), interpolated to the frequency grid of the 
+	 * full-length filter. The truncated and tapered kernel broadens narrow features of the filter, so the
+	 * parameter counting and source filtering correction must use this response, rather than the exact one.
+	 * 
+	 */
+	@Override
+	protected double appliedResponseAt(int fch) {
+		if(!isSegmented() || segmentResponse == null) return super.appliedResponseAt(fch);
+		
+		final double x = (double) fch * segmentSize / nt;
+		final int i = Math.min((int) x, segmentResponse.length - 1);
+		final int j = Math.min(i + 1, segmentResponse.length - 1);
+		final double w = x - i;
+		
+		return 1.0 - ((1.0 - w) * segmentResponse[i] + w * segmentResponse[j]);
+	}
+	
+	/**
+	 * Calculates the rejection response on the segment frequency grid, for the impulse response of the full-length
+	 * filter, truncated to a quarter of the segment length on either side and tapered by a Hann window. The
+	 * impulse response is obtained by filtering a unit impulse exactly the same way as {@link #fftFilter(Channel)}
+	 * filters the data, so the result is independent of the normalization conventions of the FFT.
+	 * 
+	 */
+	protected void updateSegmentResponse() {
+		final int L = segmentSize;
+		final int K = L >>> 2;
+		
+		final float[] h = integration.getFloats();
+		Arrays.fill(h, 0.0F);
+		h[0] = 1.0F;
+		
+		final FloatFFT fft = integration.getFFT();
+		fft.real2Amplitude(h);
+		
+		h[0] = 0.0F;
+		h[1] *= rejectionAt(nf);
+		for(int f = h.length >>> 1; --f > 0; ) {
+			final double r = rejectionAt(f);
+			h[f<<1] *= r;
+			h[(f<<1) + 1] *= r;
+		}
+		
+		fft.amplitude2Real(h);
+		
+		// The tapered kernel for lags 0 to K, with the positive and negative lags combined...
+		final double[] kernel = new double[K+1];
+		kernel[0] = h[0];
+		for(int k=K; k > 0; k--) kernel[k] = 0.5 * (1.0 + Math.cos(Math.PI * k / (K+1))) * (h[k] + h[h.length - k]);
+		
+		Integration.recycle(h);
+		
+		final double[] cosTable = new double[L];
+		for(int i=L; --i >= 0; ) cosTable[i] = Math.cos(Constant.twoPi * i / L);
+		
+		segmentResponse = new float[(L>>>1) + 1];
+		for(int f=segmentResponse.length; --f > 0; ) {
+			double sum = kernel[0];
+			for(int k=K; k > 0; k--) sum += kernel[k] * cosTable[(f * k) % L];
+			segmentResponse[f] = (float) sum;
+		}
+		// Never reject the DC component, same as the full-length filter...
+		segmentResponse[0] = 0.0F;
+	}
+	
+	/**
+	 * Overlap-save filtering of the channel's timestream, using fixed-size segments. The buffers needed are set
+	 * by the segment size alone, regardless of the length of the integration. Each segment produces 
+	 * <code>L/2</code> output samples, with <code>L/4</code> samples of overlap on either side to accommodate
+	 * the truncated filter kernel.
+	 * 
+	 * @param channel	The channel whose timestream (in the temporary data) is to be converted to its rejected signal.
+	 */
+	protected void segmentedFilter(Channel channel) {
+		final float[] data = getTempData();
+		final int n = integration.size();
+		final int L = segmentSize;
+		final int K = L >>> 2;
+		final int hop = L - (K<<1);
+		
+		if(block == null || block.length != L) {
+			block = new float[L];
+			pending = new float[hop];
+		}
+		
+		final FloatFFT fft = integration.getFFT();
+		
+		int start = 0;
+		for(; start < n; start += hop) {
+			final int from = start - K;
+			for(int i=L; --i >= 0; ) {
+				final int t = from + i;
+				block[i] = (t >= 0 && t < n) ? data[t] : 0.0F;
+			}
+			
+			// The input of the previous segment is no longer needed, so write its output in place...
+			if(start > 0) System.arraycopy(pending, 0, data, start - hop, hop);
+			
+			fft.real2Amplitude(block);
+			
+			block[0] *= segmentResponse[0];
+			block[1] *= segmentResponse[L>>>1];
+			for(int f=L>>>1; --f > 0; ) {
+				final float r = segmentResponse[f];
+				block[f<<1] *= r;
+				block[(f<<1) + 1] *= r;
+			}
+			
+			fft.amplitude2Real(block);
+			
+			System.arraycopy(block, K, pending, 0, hop);
+		}
+		
+		start -= hop;
+		System.arraycopy(pending, 0, data, start, Math.min(hop, n - start));
+	}
+	
 	protected void addFrameParms(Channel channel) {
 		final double dp = rejected / points;
 		final int c = channel.getIndex();
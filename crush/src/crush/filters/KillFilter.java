@@ -27,7 +27,6 @@ import java.util.List;
 import java.util.stream.IntStream;
 
 import crush.Integration;
-import jnum.Constant;
 import jnum.math.Range;
 
 public class KillFilter extends FixedFilter {
@@ -78,13 +77,9 @@ public class KillFilter extends FixedFilter {
 	}
 	
 	public void autoDFT() {
-		// DFT 51 ops per datum, per rejected complex frequency...
-		int dftreq = 51 * (int) countParms() * integration.size();
-		
-		// 2xFFT (forth and back) with 31 ops each loop, 9.5 ops per datum, 34.5 ops per datum rearrange...
-		int fftreq = 2 * (31 * (int) Math.round(Math.log(nt) / Constant.log2) * nt + 44 * nt); 
-	
-		setDFT(dftreq < fftreq);
+		if(hasOption("dft")) setDFT(true);
+		else if(hasOption("fft")) setDFT(false);
+		else setDFT(SparseDFT.isPreferred(integration.size(), nt, getRejectedBins().length));
 	}
 		
 	@Override
@@ -95,6 +90,7 @@ public class KillFilter extends FixedFilter {
 
 	@Override
 	protected double countParms() {
+	    if(isSegmented()) return super.countParms();
 	    return (int) IntStream.range(getHipassIndex(), reject.length).parallel().filter(f -> reject[f]).count();
 	}
 
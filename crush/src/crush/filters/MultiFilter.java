@@ -104,6 +104,7 @@ public class MultiFilter extends VariedFilter {
 		else if(filter.integration != integration) 
 			throw new IllegalStateException("Cannot compound filter from a different integration.");
 		filter.setChannels(getChannels());
+		filter.isCompounded = true;
 		filters.add(filter);
 	}
 
@@ -112,15 +113,19 @@ public class MultiFilter extends VariedFilter {
 		else if(filter.integration != integration) 
 			throw new IllegalStateException("Cannot compound filter from a different integration.");
 		filter.setChannels(getChannels());
-		filters.set(i, filter);
+		filter.isCompounded = true;
+		Filter previous = filters.set(i, filter);
+		if(previous != null && previous != filter) previous.isCompounded = false;
 	}
 	
 	public synchronized void remove(Filter filter) {
-		filters.remove(filter);
+		if(filters.remove(filter)) filter.isCompounded = false;
 	}
 	
 	public synchronized Filter remove(int i) {
-		return filters.remove(i);
+		Filter filter = filters.remove(i);
+		filter.isCompounded = false;
+		return filter;
 	}
 	
 	
@@ -171,9 +176,18 @@ public class MultiFilter extends VariedFilter {
 		Arrays.fill(data, integration.size(), data.length, 0.0F);
 		Arrays.fill(filtered, 0.0F);
 		
+		for(Filter filter : filters) if(filter.isEnabled()) {
+			if(filter.getTempData() != data) filter.setTempData(data);
+			filter.preTransform(channel);
+		}
+		
 		integration.getFFT().real2Amplitude(data);	
 		data[0] = 0.0F;
 		
+		// The combined response of the filters applied so far, since the pre-transform hooks saw the unfiltered data...
+		final float[] upstream = integration.getFloats();
+		Arrays.fill(upstream, 0, nf + 1, 1.0F);
+		
 		// Apply the filters sequentially...
 		for(int n=0; n<filters.size(); n++) {
 			final Filter filter = filters.get(n);
@@ -184,15 +198,19 @@ public class MultiFilter extends VariedFilter {
 			if(filter.getTempData() != data) filter.setTempData(data);
 			
 			filter.points = points;
+			filter.setUpstreamResponse(upstream);
 			filter.preFilter(channel);
 			filter.updateProfile(channel);
+			filter.setUpstreamResponse(null);
 			
 			final float nyquistPass = (float) filter.responseAt(nf);
 			filtered[1] = data[1] * (1.0F - nyquistPass);
 			data[1] *= nyquistPass;
+			upstream[nf] *= nyquistPass;
 		
 			for(int i=2; i<data.length; ) {
 				final float pass = (float) filter.responseAt(i >> 1);
+				upstream[i >> 1] *= pass;
 			
 				// Apply the filter to the real part...
 				filtered[i] = (1.0F - pass) * data[i];
@@ -206,6 +224,8 @@ public class MultiFilter extends VariedFilter {
 			filter.postFilter(channel);
 		}
 		
+		Integration.recycle(upstream);
+		
 		// Convert to rejected signal...
 		integration.getFFT().amplitude2Real(filtered);
 		
@@ -32,6 +32,7 @@ import jnum.Configurator;
 import jnum.ExtraMath;
 import jnum.data.DataPoint;
 import jnum.data.Statistics;
+import jnum.fft.FloatFFT;
 import jnum.math.Range;
 
 public class WhiteningFilter extends AdaptiveFilter {
@@ -52,6 +53,15 @@ public class WhiteningFilter extends AdaptiveFilter {
 
     private DataPoint[] A, temp; // The amplitude at reduced resolution, and a temp storage for median
 
+    private boolean isWelch = false; // Whether to estimate spectra from overlapping segments of the timestream
+    private double welchTolerance = 0.05; // The fractional change in noise power, below which spectra are reused
+    private float[][] welchPower; // The last Welch spectrum of each channel, as applicable to its current data
+    private float[] welchMeanSquare; // The expected mean-square timestream level for the above spectra
+    private float[] window, segment; // The Hann window, and the storage for transforming a timestream segment
+    private double[] welchSum; // The accumulator for the segment power spectra
+    private int welchSegments; // The number of timestream segments in the Welch spectrum estimates
+    private double welchScale; // The conversion from segment to full-length spectral power
+
     public WhiteningFilter(Integration<?> integration) {
         super(integration);
     }
@@ -65,6 +75,8 @@ public class WhiteningFilter extends AdaptiveFilter {
         WhiteningFilter clone = (WhiteningFilter) super.clone();
         if(A != null) clone.A = DataPoint.createArray(A.length);
         if(temp != null) clone.temp = DataPoint.createArray(temp.length);
+        clone.segment = null;
+        clone.welchSum = null;
         return clone;
     }
 
@@ -104,6 +116,9 @@ public class WhiteningFilter extends AdaptiveFilter {
         probe.scale(1.0 / dF);
         probe.intersectWith(0.0, nF);
 
+        isWelch = hasOption("welch") && nt >= 4 * nF;
+        if(hasOption("welch.tolerance")) welchTolerance = option("welch.tolerance").getDouble();
+
         whiteFrom = Math.max(1, (int) Math.floor(probe.min()));
         whiteTo = Math.min(nF, (int) Math.ceil(probe.max()) + 1);
 
@@ -130,45 +145,215 @@ public class WhiteningFilter extends AdaptiveFilter {
         A = DataPoint.createArray(nF);
         temp = new DataPoint[nF];
 
+        // Spectra at the old resolution can no longer be reused...
+        welchPower = null;
+        welchMeanSquare = null;
+        window = null;
     }	
 
+    @Override
+    protected void preTransform(Channel channel) {
+        super.preTransform(channel);
+        if(isWelch) updateWelchSpectrum(channel);
+    }
+
     @Override
     public void updateProfile(Channel channel) {
-        calcMeanAmplitudes(channel);
+        if(isWelch) calcWelchAmplitudes(channel);
+        else calcMeanAmplitudes(channel);
         whitenProfile(channel);
+        if(isWelch) updateWelchCache(channel);
     }
 
-    private void calcMeanAmplitudes(Channel channel) {
+    @Override
+    protected void preFilter() {
+        super.preFilter();
+        // Create the spectrum cache in the master filter, so it is shared by (and persists beyond) the workers...
+        if(isWelch) if(welchPower == null) initWelch();
+    }
+
+    private void initWelch() {
+        final int L = nF << 1;
+        final float[] w = new float[L];
+        for(int i=L; --i >= 0; ) w[i] = (float) (0.5 * (1.0 - Math.cos(Math.PI * i / nF)));
+
+        welchSegments = (integration.size() - L) / nF + 1;
+
+        // Match the segment spectra to the scale of the full spectrum, whatever the FFT normalization...
+        // For white noise the power per frequency channel is n m^2 sigma^2, where m is the transform of
+        // a unit impulse.
+        final FloatFFT fft = integration.getFFT();
+        final float[] impulse = new float[L];
+        impulse[0] = 1.0F;
+        fft.real2Amplitude(impulse);
+        final double mL = impulse[2];
+
+        final float[] full = integration.getFloats();
+        Arrays.fill(full, 0.0F);
+        full[0] = 1.0F;
+        fft.real2Amplitude(full);
+        final double mN = full[2];
+        Integration.recycle(full);
+
+        welchScale = (mN * mN * integration.size()) / (mL * mL * L);
+
+        welchMeanSquare = new float[getInstrument().size()];
+        welchPower = new float[getInstrument().size()][];
+        window = w;
+    }
+
+    /**
+     * Estimates the power spectrum of the channel timestream, at the whitening resolution, by averaging the 
+     * periodograms of Hann-windowed segments with 50% overlap (Welch's method), using fixed-size primitive 
+     * storage. If the mean-square level of the timestream is within the tolerance of that expected from the 
+     * previous estimate, then the previous spectrum (updated for the whitening since) is reused instead.
+     * 
+     * @param channel   The channel whose timestream is currently held in the temporary data.
+     */
+    private void updateWelchSpectrum(Channel channel) {
         final int c = channel.getIndex();
-        
-        // If the filterResponse array does not exist, create it...
+        final float[] data = getTempData();
+        final int n = integration.size();
+
+        double sumx2 = 0.0;
+        for(int t=n; --t >= 0; ) sumx2 += data[t] * data[t];
+        final double meanSquare = sumx2 / n;
+
+        if(welchPower[c] != null) if(Math.abs(meanSquare - welchMeanSquare[c]) <= welchTolerance * welchMeanSquare[c]) return;
+
+        final int L = nF << 1;
+        if(segment == null) {
+            segment = new float[L];
+            welchSum = new double[nF + 1];
+        }
+
+        Arrays.fill(welchSum, 0.0);
+
+        final FloatFFT fft = integration.getFFT();
+
+        for(int from = 0; from + L <= n; from += nF) {
+            for(int i=L; --i >= 0; ) segment[i] = window[i] * data[from + i];
+
+            fft.real2Amplitude(segment);
+
+            welchSum[0] += segment[0] * segment[0];
+            welchSum[nF] += segment[1] * segment[1];
+            for(int F=nF; --F > 0; ) {
+                final int i = F << 1;
+                welchSum[F] += segment[i] * segment[i] + segment[i+1] * segment[i+1];
+            }
+        }
+
+        // Normalize to the mean power per segment, corrected for the window power (3/8 for Hann)...
+        final double norm = welchScale / (0.375 * welchSegments);
+
+        float[] P = welchPower[c];
+        if(P == null) P = welchPower[c] = new float[nF + 1];
+        for(int F=nF+1; --F >= 0; ) P[F] = (float) (norm * welchSum[F]);
+
+        welchMeanSquare[c] = (float) meanSquare;
+    }
+
+    private void calcWelchAmplitudes(Channel channel) {
+        final int c = channel.getIndex();
+
         if(channelProfiles[c] == null) {
             channelProfiles[c] = new float[nF];
             Arrays.fill(channelProfiles[c], 1.0F);
         }
 
+        final float[] P = welchPower[c];
         final float[] data = getTempData();
+        final float[] upstream = getUpstreamResponse();
+
+        // The Welch spectrum was estimated before the preceding filters (if any) were applied, so attenuate it by
+        // their combined power response. The cached spectrum then describes the filtered timestream also... 
+        if(upstream != null) {
+            double sumP = 0.0, sumP1 = 0.0;
+            for(int F=nF; --F >= 0; ) {
+                final int fromf = Math.max(1, F * windows);
+                final int tof = Math.min(fromf + windows, nf);
+                if(tof <= fromf) continue;
+                
+                double sumG2 = 0.0;
+                for(int f=tof; --f >= fromf; ) sumG2 += upstream[f] * upstream[f];
+                
+                sumP += P[F];
+                P[F] *= (float) (sumG2 / (tof - fromf));
+                sumP1 += P[F];
+            }
+            P[nF] *= upstream[nf] * upstream[nf];
+            if(sumP > 0.0) welchMeanSquare[c] *= (float) (sumP1 / sumP);
+        }
+
+        // Overlapping Hann segments are not independent. 1 + 2 rho^2 (with rho = 0.167) is the variance penalty 
+        // for 50% overlap...
+        final double dof = 2.0 * welchSegments / 1.056;
 
-        // Get the coarse average spectrum...
         for(int F=nF; --F >= 0; ) {
             final int fromf = Math.max(2, 2 * F * windows);
             final int tof = Math.min(fromf + 2 * windows, data.length);
 
-            double sumP = 0.0;
-            int pts = 0;
+            // Spectral windows with components killed entirely by other filters are measured from the spectrum 
+            // directly...
+            boolean isKilled = false;
+            if(upstream == null) for(int f=tof; --f >= fromf; ) if(data[f] == 0.0) {
+                isKilled = true;
+                break;
+            }
+            if(P[F] == 0.0F) isKilled = true;
 
-            // Sum the power inside the spectral window...
-            // Skip over channels that have been killed by KillFilter...
-            for(int f=tof; --f >= fromf; ) if(data[f] != 0.0) {
-                sumP += data[f] * data[f];
-                pts++;
+            if(isKilled) {
+                // Keep the Welch weighting across the profile, scaled by the fraction of the nominal spectral window 
+                // that is measured...
+                final int pts = calcMeanAmplitude(F);
+                A[F].setWeight(dof * pts / (2.0 * windows));
+            }
+            else {
+                A[F].setValue(Math.sqrt(P[F]));
+                A[F].setWeight(dof);
             }
+        }
+
+        // Add the Nyquist component to the last bin...
+        if(P[nF] > 0.0F) {
+            final DataPoint nyquist = A[nF-1];
+            nyquist.setValue(nyquist.weight() * nyquist.value() * nyquist.value() + dof * P[nF]);
+            nyquist.addWeight(0.5 * dof);
+            nyquist.setValue(Math.sqrt(nyquist.value() / nyquist.weight()));
+        }
+    }
+
+    private void updateWelchCache(Channel channel) {
+        // Adjust the spectrum to describe the channel data after this round of whitening...
+        final int c = channel.getIndex();
+        final float[] P = welchPower[c];
+        final float[] profile = getProfile();
+
+        double sumP = 0.0, sumP1 = 0.0;
+
+        for(int F=nF; --F >= 1; ) {
+            sumP += P[F];
+            P[F] *= profile[F] * profile[F];
+            sumP1 += P[F];
+        }
+
+        if(sumP > 0.0) welchMeanSquare[c] *= (float) (sumP1 / sumP);
+    }
+
+    private void calcMeanAmplitudes(Channel channel) {
+        final int c = channel.getIndex();
+        
+        // If the filterResponse array does not exist, create it...
+        if(channelProfiles[c] == null) {
+            channelProfiles[c] = new float[nF];
+            Arrays.fill(channelProfiles[c], 1.0F);
+        }
 
-            // Set the amplitude equal to the rms power...
-            // The full power is the sum of real and imaginary components...
-            A[F].setValue(pts > 0 ? Math.sqrt(2.0 * sumP / pts) : 0.0);
-            A[F].setWeight(pts);
-        }	
+        final float[] data = getTempData();
+
+        // Get the coarse average spectrum...
+        for(int F=nF; --F >= 0; ) calcMeanAmplitude(F);
 
         // Add the Nyquist component to the last bin...
         // Skip if it has been killed by KillFilter...
@@ -181,6 +366,29 @@ public class WhiteningFilter extends AdaptiveFilter {
 
     }
 
+    private int calcMeanAmplitude(int F) {
+        final float[] data = getTempData();
+        final int fromf = Math.max(2, 2 * F * windows);
+        final int tof = Math.min(fromf + 2 * windows, data.length);
+
+        double sumP = 0.0;
+        int pts = 0;
+
+        // Sum the power inside the spectral window...
+        // Skip over channels that have been killed by KillFilter...
+        for(int f=tof; --f >= fromf; ) if(data[f] != 0.0) {
+            sumP += data[f] * data[f];
+            pts++;
+        }
+
+        // Set the amplitude equal to the rms power...
+        // The full power is the sum of real and imaginary components...
+        A[F].setValue(pts > 0 ? Math.sqrt(2.0 * sumP / pts) : 0.0);
+        A[F].setWeight(pts);
+        
+        return pts;
+    }
+
     private void whitenProfile(Channel channel) {
         final float[] profile = getProfile();
 
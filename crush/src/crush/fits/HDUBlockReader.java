@@ -0,0 +1,325 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush.fits;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import crush.CRUSH;
+import jnum.parallel.ParallelTask;
+import nom.tam.fits.*;
+
+/**
+ * 
+ * A parallel reader for uncompressed FITS binary tables (with fixed-size columns only), which splits the table into 
+ * blocks of rows that are decoded concurrently. Column data are accessed directly from the big-endian bytes of each 
+ * row via the {@link TableRow} interface, without decoding the rows into Java arrays first.
+ * <p>
+ * 
+ * By default, the data unit of the table is memory-mapped, so the table data are decoded straight from the page 
+ * cache into their final destination (e.g. frame fields), without intermediate copies, and the cached pages are
+ * shared across repeated reads of the same file. Otherwise (or if mapping fails), each worker thread reads its 
+ * blocks of raw table data with positional reads (so no locking is needed on the shared file channel) into its own 
+ * preallocated buffer.
+ * <p>
+ * 
+ * Rows are processed in increasing order within each block, but blocks are processed concurrently, so the 
+ * processing must not rely on the order of rows. For ordered processing use {@link HDURowReader} with a single 
+ * thread instead.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public abstract class HDUBlockReader {
+    protected BinaryTableHDU hdu;
+
+    private FileChannel channel;
+    private long dataOffset;
+    private int rows, rowBytes;
+    private int blockRows;
+    
+    private boolean isMemoryMapped = true;
+    private ByteBuffer mapped;
+
+    private int[] columnOffset, elementBytes, elements;
+
+
+    public HDUBlockReader(BinaryTableHDU hdu, FileChannel channel) throws FitsException {
+        this.hdu = hdu;
+        this.channel = channel;
+
+        dataOffset = hdu.getData().getFileOffset();
+        if(dataOffset < 0) throw new FitsException("Binary table is not associated with a file location.");
+
+        Header header = hdu.getHeader();
+        rowBytes = header.getIntValue("NAXIS1");
+        rows = header.getIntValue("NAXIS2");
+
+        parseColumns(header);
+
+        setBlockBytes(DEFAULT_BLOCK_BYTES);
+    }
+
+    private void parseColumns(Header header) throws FitsException {
+        final int n = header.getIntValue("TFIELDS");
+
+        columnOffset = new int[n];
+        elementBytes = new int[n];
+        elements = new int[n];
+
+        int offset = 0;
+
+        for(int c=0; c<n; c++) {
+            String form = header.getStringValue("TFORM" + (c+1));
+            if(form == null) throw new FitsException("Missing TFORM" + (c+1) + ".");
+            form = form.trim().toUpperCase();
+
+            int k = 0;
+            while(k < form.length() && Character.isDigit(form.charAt(k))) k++;
+            if(k == form.length()) throw new FitsException("Invalid TFORM" + (c+1) + ": " + form);
+
+            final int repeat = k > 0 ? Integer.parseInt(form.substring(0, k)) : 1;
+            final char type = form.charAt(k);
+
+            columnOffset[c] = offset;
+            elements[c] = repeat;
+
+            switch(type) {
+            case 'L': 
+            case 'B': 
+            case 'A': elementBytes[c] = 1; break;
+            case 'I': elementBytes[c] = 2; break;
+            case 'J': 
+            case 'E': elementBytes[c] = 4; break;
+            case 'K': 
+            case 'D': elementBytes[c] = 8; break;
+            case 'X': 
+                elementBytes[c] = 1; 
+                elements[c] = (repeat + 7) >>> 3; 
+                break;
+            default: throw new FitsException("Unsupported column format for block reading: TFORM" + (c+1) + " = " + form);
+            }
+
+            offset += elements[c] * elementBytes[c];
+        }
+
+        if(offset != rowBytes) throw new FitsException("Column sizes do not add up to the row size (" + offset + " vs " + rowBytes + ").");
+    }
+
+    public final int getRows() { return rows; }
+
+    public final int getRowBytes() { return rowBytes; }
+
+    public final int getElements(int col) { return elements[col]; }
+
+    /**
+     * Sets the number of rows decoded together in a block, s.t. blocks contain (approximately) the specified number
+     * of bytes, but at least one row.
+     * 
+     * @param bytes     The desired size of blocks in bytes.
+     */
+    public void setBlockBytes(int bytes) {
+        blockRows = Math.max(1, Math.min(rows, bytes / Math.max(1, rowBytes)));
+    }
+
+    public final int getBlockRows() { return blockRows; }
+
+    public final boolean isMemoryMapped() { return isMemoryMapped; }
+    
+    /**
+     * Selects whether the data unit of the table should be memory-mapped for reading (the default), or else read
+     * block-by-block into the buffers of the worker threads. Tables larger than 2GB are never mapped.
+     * 
+     * @param value     <code>true</code> to read from a memory-mapped data unit, or <code>false</code> to read 
+     *                  blocks of rows into buffers.
+     */
+    public void setMemoryMapped(boolean value) { isMemoryMapped = value; }
+
+    public abstract Reader getReader() throws FitsException;
+
+    public void read() throws Exception {
+        read(CRUSH.maxThreads);
+    }
+
+    public void read(int threadCount) throws Exception {
+        mapped = isMemoryMapped ? map() : null;
+        
+        try {
+            if(CRUSH.executor != null) getReader().process(threadCount, CRUSH.executor);
+            else getReader().process(threadCount);
+        }
+        finally { mapped = null; }
+    }
+    
+    private ByteBuffer map() {
+        final long size = (long) rows * rowBytes;
+        if(size > Integer.MAX_VALUE) return null;
+        
+        try { return channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, size); }
+        catch(IOException | UnsupportedOperationException e) { 
+            CRUSH.debug(this, "Cannot map binary table: " + e.getMessage());
+            return null; 
+        }
+    }
+
+    private void load(ByteBuffer buffer, int fromRow, int n) throws IOException {
+        buffer.clear();
+        buffer.limit(n * rowBytes);
+
+        final long position = dataOffset + (long) fromRow * rowBytes;
+
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, position + buffer.position()) < 0) 
+                throw new EOFException("Unexpected end of binary table at row " + fromRow + ".");
+        }
+    }
+
+    /**
+     * Returns a standalone view of a single row of the table, independent of the block readers. It may be used 
+     * e.g. to inspect the leading row(s) of the table before the rows are processed in parallel blocks.
+     * 
+     * @param index     The (0-based) row index.
+     * @return          The row with the specified index.
+     * @throws IOException  If the row could not be read from the file.
+     */
+    public TableRow getRow(int index) throws IOException {
+        if(index < 0 || index >= rows) throw new IndexOutOfBoundsException("No row " + index + " in table of " + rows + " rows.");
+        
+        final ByteBuffer buffer = ByteBuffer.allocate(rowBytes);
+        load(buffer, index, 1);
+        
+        return new TableRow() {
+            private int offsetOf(int col, int i) { return columnOffset[col] + i * elementBytes[col]; }
+            
+            @Override
+            public final byte getByte(int col, int i) { return buffer.get(offsetOf(col, i)); }
+
+            @Override
+            public final short getShort(int col, int i) { return buffer.getShort(offsetOf(col, i)); }
+
+            @Override
+            public final int getInt(int col, int i) { return buffer.getInt(offsetOf(col, i)); }
+
+            @Override
+            public final long getLong(int col, int i) { return buffer.getLong(offsetOf(col, i)); }
+
+            @Override
+            public final float getFloat(int col, int i) { return buffer.getFloat(offsetOf(col, i)); }
+
+            @Override
+            public final double getDouble(int col, int i) { return buffer.getDouble(offsetOf(col, i)); }
+        };
+    }
+
+    /**
+     * Returns the Java array dimensions of a column entry, based on its TDIMn header keyword (if any), e.g. 
+     * <code>{ rows, cols }</code> for a 2D column entry.
+     * 
+     * @param hdu   The binary table HDU.
+     * @param col   The (0-based) column index.
+     * @return      The dimensions of the column entry in Java array order, or <code>null</code> if the header
+     *              does not specify dimensions for the column.
+     */
+    public static int[] getDimensions(BinaryTableHDU hdu, int col) {
+        String spec = hdu.getHeader().getStringValue("TDIM" + (col+1));
+        if(spec == null) return null;
+
+        spec = spec.trim();
+        if(spec.startsWith("(")) spec = spec.substring(1);
+        if(spec.endsWith(")")) spec = spec.substring(0, spec.length() - 1);
+
+        final String[] tokens = spec.split(",");
+        final int[] dims = new int[tokens.length];
+
+        // FITS dimensions are listed with the fastest varying index first, i.e. opposite of Java...
+        for(int i=tokens.length; --i >= 0; ) dims[tokens.length - 1 - i] = Integer.parseInt(tokens[i].trim());
+
+        return dims;
+    }
+
+
+    public abstract class Reader extends ParallelTask<Void> implements TableRow {
+        private ByteBuffer buffer;
+        private int rowOffset;
+
+        private boolean isMapped;
+
+        @Override
+        public void init() { 
+            super.init();
+            isMapped = mapped != null;
+            // Each worker has its own view of the mapped data, or else its own buffer to read blocks into...
+            buffer = isMapped ? mapped.duplicate() : ByteBuffer.allocate(blockRows * rowBytes);
+        }
+
+        @Override
+        public void processChunk(int i, int threadCount) throws Exception {
+            final int blocks = (rows + blockRows - 1) / blockRows;
+
+            for(int block=i; block<blocks; block += threadCount) {
+                if(isInterrupted()) return;
+
+                final int from = block * blockRows;
+                final int n = Math.min(blockRows, rows - from);
+
+                if(!isMapped) load(buffer, from, n);
+
+                final int offset = isMapped ? from * rowBytes : 0;
+
+                for(int k=0; k<n; k++) {
+                    rowOffset = offset + k * rowBytes;
+                    processRow(from + k, this);
+                }
+            }
+        }
+
+        public abstract void processRow(int index, TableRow row) throws Exception;
+
+        private int offsetOf(int col, int i) { return rowOffset + columnOffset[col] + i * elementBytes[col]; }
+
+        @Override
+        public final byte getByte(int col, int i) { return buffer.get(offsetOf(col, i)); }
+
+        @Override
+        public final short getShort(int col, int i) { return buffer.getShort(offsetOf(col, i)); }
+
+        @Override
+        public final int getInt(int col, int i) { return buffer.getInt(offsetOf(col, i)); }
+
+        @Override
+        public final long getLong(int col, int i) { return buffer.getLong(offsetOf(col, i)); }
+
+        @Override
+        public final float getFloat(int col, int i) { return buffer.getFloat(offsetOf(col, i)); }
+
+        @Override
+        public final double getDouble(int col, int i) { return buffer.getDouble(offsetOf(col, i)); }
+
+    }
+
+
+    public static final int DEFAULT_BLOCK_BYTES = 4 * 1024 * 1024;
+}
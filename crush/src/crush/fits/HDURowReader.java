@@ -31,8 +31,11 @@ import jnum.parallel.ParallelTask;
 import nom.tam.fits.*;
 import nom.tam.util.*;
 
-// TODO does not work with gzipped FITS...
-
+/**
+ * Reads the rows of a FITS binary table, and processes them in parallel. Tables in random-access files are read 
+ * row-by-row from the file. Otherwise (e.g. for gzipped FITS, which is read as a stream) the table data are in memory 
+ * already, and rows are taken from there.
+ */
 public abstract class HDURowReader {	
 	protected BinaryTableHDU hdu;
 	protected BinaryTable table;
@@ -40,6 +43,7 @@ public abstract class HDURowReader {
 	
 	private Object[] modelRow;
     private int nextRow = 0;
+    private boolean isInMemory = false;
 
 	
 	public HDURowReader(BinaryTableHDU hdu, ArrayDataInput in) throws FitsException { 
@@ -55,8 +59,10 @@ public abstract class HDURowReader {
 	}
 
 	public void read(int threadCount) throws Exception {   
+	    isInMemory = !(in instanceof RandomAccess);
 	    modelRow = table.getModelRow();
-	    if(!table.reset()) throw new FitsException("Cannot locate beginning of FITS binary table.");	// Go to the beginning
+	    
+	    if(!isInMemory) if(!table.reset()) throw new FitsException("Cannot locate beginning of FITS binary table.");	// Go to the beginning
 	
 		nextRow = 0;		
 		if(CRUSH.executor != null) getReader().process(threadCount, CRUSH.executor);
@@ -65,6 +71,7 @@ public abstract class HDURowReader {
 	
 	private synchronized int readNextRow(Object[] data) throws IOException {  
 		if(nextRow >= table.getNRows()) return -1;		
+		if(isInMemory) return nextRow++;
 		long bytes = in.readLArray(data);
 		if(bytes == 0) return -1;
 		return nextRow++;
@@ -85,7 +92,7 @@ public abstract class HDURowReader {
 			int index;
 			while((index = readNextRow(row)) >= 0) {
 				if(isInterrupted()) return;				
-				processRow(index, row);
+				processRow(index, isInMemory ? table.getRow(index) : row);
 			}
 		}
 		
@@ -0,0 +1,108 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush.fits;
+
+/**
+ * 
+ * A {@link TableRow} view of a binary table row that has been decoded into Java arrays (e.g. by 
+ * {@link nom.tam.fits.BinaryTable#getModelRow()} and {@link HDURowReader}). Column entries may be 1D or 2D arrays 
+ * of primitives. The same object may be reused for successive rows via {@link #setRow(Object[])}.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class ObjectTableRow implements TableRow {
+    private Object[] row;
+
+    public ObjectTableRow() {}
+
+    public ObjectTableRow(Object[] row) {
+        setRow(row);
+    }
+
+    public Object[] getRow() { return row; }
+
+    public void setRow(Object[] row) { this.row = row; }
+
+    @Override
+    public byte getByte(int col, int i) {
+        final Object a = row[col];
+        if(a instanceof byte[][]) {
+            final byte[][] b = (byte[][]) a;
+            return b[i / b[0].length][i % b[0].length];
+        }
+        return ((byte[]) a)[i];
+    }
+
+    @Override
+    public short getShort(int col, int i) {
+        final Object a = row[col];
+        if(a instanceof short[][]) {
+            final short[][] s = (short[][]) a;
+            return s[i / s[0].length][i % s[0].length];
+        }
+        return ((short[]) a)[i];
+    }
+
+    @Override
+    public int getInt(int col, int i) {
+        final Object a = row[col];
+        if(a instanceof int[][]) {
+            final int[][] j = (int[][]) a;
+            return j[i / j[0].length][i % j[0].length];
+        }
+        return ((int[]) a)[i];
+    }
+
+    @Override
+    public long getLong(int col, int i) {
+        final Object a = row[col];
+        if(a instanceof long[][]) {
+            final long[][] k = (long[][]) a;
+            return k[i / k[0].length][i % k[0].length];
+        }
+        return ((long[]) a)[i];
+    }
+
+    @Override
+    public float getFloat(int col, int i) {
+        final Object a = row[col];
+        if(a instanceof float[][]) {
+            final float[][] e = (float[][]) a;
+            return e[i / e[0].length][i % e[0].length];
+        }
+        return ((float[]) a)[i];
+    }
+
+    @Override
+    public double getDouble(int col, int i) {
+        final Object a = row[col];
+        if(a instanceof double[][]) {
+            final double[][] d = (double[][]) a;
+            return d[i / d[0].length][i % d[0].length];
+        }
+        return ((double[]) a)[i];
+    }
+
+}
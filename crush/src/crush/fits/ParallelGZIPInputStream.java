@@ -0,0 +1,407 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush.fits;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import crush.CRUSH;
+
+/**
+ * 
+ * An input stream that inflates gzipped data ahead of the reader, on other threads. Block-compressed gzip files 
+ * (BGZF-style, i.e. concatenated gzip members, each carrying its compressed size in a 'BC' extra subfield) are 
+ * inflated in parallel, one member per task, since the member boundaries are known without inflating. Other gzip 
+ * files (including plain multi-member files, whose boundaries are known only after inflating) are inflated on a 
+ * single background thread, which overlaps the decompression with the decoding of the data by the reader.
+ * <p>
+ * 
+ * Inflated data are delivered in order. The amount of data inflated ahead of the reader is bounded, so the memory
+ * overhead is small regardless of the file size. All streams share the same (daemon) inflater threads.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class ParallelGZIPInputStream extends InputStream {
+    private BufferedInputStream in;
+    private GZIPInputStream gzip;
+
+    private Executor streamLane;
+    private ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private int threads;
+
+    private byte[] buffer;
+    private int offset;
+
+    private boolean isBlocked = true;
+    private boolean hasBlocks = false;
+    private boolean isEOF = false;
+    private boolean isClosed = false;
+
+    public ParallelGZIPInputStream(File file) throws FileNotFoundException {
+        this(new FileInputStream(file));
+    }
+
+    public ParallelGZIPInputStream(InputStream in) {
+        this(in, CRUSH.maxThreads);
+    }
+
+    public ParallelGZIPInputStream(InputStream in, int threads) {
+        this.in = new BufferedInputStream(in, IO_BUFFER_SIZE);
+        this.threads = Math.max(1, threads);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(!ensureData()) return -1;
+        return buffer[offset++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(len == 0) return 0;
+        if(!ensureData()) return -1;
+
+        final int n = Math.min(len, buffer.length - offset);
+        System.arraycopy(buffer, offset, b, off, n);
+        offset += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+
+        while(skipped < n && ensureData()) {
+            final int k = (int) Math.min(n - skipped, buffer.length - offset);
+            offset += k;
+            skipped += k;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return buffer == null ? 0 : buffer.length - offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(isClosed) return;
+        isClosed = true;
+
+        for(Future<byte[]> future : pending) future.cancel(true);
+        pending.clear();
+
+        buffer = null;
+        in.close();
+    }
+
+    private boolean ensureData() throws IOException {
+        if(isClosed) throw new IOException("Stream closed.");
+
+        while(buffer == null || offset >= buffer.length) {
+            fill();
+            if(pending.isEmpty()) return false;
+
+            try { buffer = pending.removeFirst().get(); }
+            catch(InterruptedException e) { throw new InterruptedIOException(e.getMessage()); }
+            catch(ExecutionException e) {
+                if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw new IOException(e.getCause());
+            }
+
+            offset = 0;
+
+            if(buffer == null) {
+                // End of the inflated stream...
+                pending.clear();
+                isEOF = true;
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Queues inflation tasks, up to the look-ahead depth.
+    private void fill() throws IOException {
+        while(!isEOF && pending.size() < (isBlocked ? BLOCK_DEPTH * threads : STREAM_DEPTH)) {
+            if(isBlocked) submitNextBlock();
+            else {
+                final FutureTask<byte[]> chunk = new FutureTask<>(new StreamChunk());
+                getStreamLane().execute(chunk);
+                pending.add(chunk);
+            }
+        }
+    }
+
+    private void submitNextBlock() throws IOException {
+        in.mark(MAX_HEADER_SIZE);
+
+        final byte[] header = new byte[10];
+        int n = readFully(header, 0, header.length);
+
+        if(n == 0) {
+            isEOF = true;
+            return;
+        }
+
+        // Trailing garbage after the last member is ignored, as with GZIPInputStream...
+        if(n < header.length || (header[0] & 0xff) != GZIP_ID1 || (header[1] & 0xff) != GZIP_ID2) {
+            if(!hasBlocks) switchToStream();
+            else isEOF = true;
+            return;
+        }
+
+        final int size = getBlockSize(header);
+
+        if(size < 0) {
+            switchToStream();
+            return;
+        }
+
+        final byte[] member = new byte[size];
+        System.arraycopy(header, 0, member, 0, header.length);
+        in.reset();
+        if(readFully(member, 0, size) != size) throw new EOFException("Truncated gzip block.");
+
+        hasBlocks = true;
+        pending.add(getPool().submit(new Block(member)));
+    }
+
+    // Returns the total compressed size of the member from its 'BC' subfield, or -1 if it does not have one.
+    private int getBlockSize(byte[] header) throws IOException {
+        if((header[2] & 0xff) != 8) return -1;       // Not deflate...
+        if((header[3] & FEXTRA) == 0) return -1;
+
+        final byte[] xlen = new byte[2];
+        if(readFully(xlen, 0, 2) != 2) return -1;
+
+        final byte[] extra = new byte[(xlen[0] & 0xff) | ((xlen[1] & 0xff) << 8)];
+        if(readFully(extra, 0, extra.length) != extra.length) return -1;
+
+        for(int i=0; i + 4 <= extra.length; ) {
+            final int slen = (extra[i+2] & 0xff) | ((extra[i+3] & 0xff) << 8);
+            if(extra[i] == 'B' && extra[i+1] == 'C' && slen == 2 && i + 6 <= extra.length) 
+                return ((extra[i+4] & 0xff) | ((extra[i+5] & 0xff) << 8)) + 1;
+            i += 4 + slen;
+        }
+
+        return -1;
+    }
+
+    private void switchToStream() throws IOException {
+        in.reset();
+        isBlocked = false;
+        gzip = new GZIPInputStream(in, IO_BUFFER_SIZE);
+    }
+
+    private int readFully(byte[] b, int from, int n) throws IOException {
+        int k = 0;
+        while(k < n) {
+            final int m = in.read(b, from + k, n - k);
+            if(m < 0) break;
+            k += m;
+        }
+        return k;
+    }
+
+    // Stream chunks must be inflated one after the other, in order, but without tying up a thread of their own...
+    private Executor getStreamLane() {
+        if(streamLane == null) streamLane = new SerialExecutor(getPool());
+        return streamLane;
+    }
+
+    private static synchronized ExecutorService getPool() {
+        if(pool == null) pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), ParallelGZIPInputStream::newDaemonThread);
+        return pool;
+    }
+
+    private static Thread newDaemonThread(Runnable r) {
+        Thread thread = new Thread(r, "gzip-inflater");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+
+    /**
+     * Runs tasks one at a time, in the order they were submitted, on the threads of another executor.
+     */
+    private static class SerialExecutor implements Executor {
+        private final Executor executor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        private SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(final Runnable task) {
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    try { task.run(); }
+                    finally { next(); }
+                }
+            });
+            if(active == null) next();
+        }
+
+        private synchronized void next() {
+            active = tasks.poll();
+            if(active != null) executor.execute(active);
+        }
+    }
+
+
+    private class StreamChunk implements Callable<byte[]> {
+        @Override
+        public byte[] call() throws IOException {
+            final byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+
+            int n = 0;
+            while(n < chunk.length) {
+                final int k = gzip.read(chunk, n, chunk.length - n);
+                if(k < 0) break;
+                n += k;
+            }
+
+            if(n == 0) return null;
+            if(n < chunk.length) {
+                final byte[] last = new byte[n];
+                System.arraycopy(chunk, 0, last, 0, n);
+                return last;
+            }
+            return chunk;
+        }
+    }
+
+    private static class Block implements Callable<byte[]> {
+        private byte[] member;
+
+        private Block(byte[] member) {
+            this.member = member;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            final int flags = member[3] & 0xff;
+            int from = 10;
+
+            final int trailer = member.length - 8;
+
+            if((flags & FEXTRA) != 0) from += 2 + ((member[10] & 0xff) | ((member[11] & 0xff) << 8));
+            if((flags & FNAME) != 0) from = skipString(from, trailer);
+            if((flags & FCOMMENT) != 0) from = skipString(from, trailer);
+            if((flags & FHCRC) != 0) from += 2;
+
+            if(from > trailer) throw new ZipException("Corrupt gzip block (header overruns block size).");
+
+            final long crc = getUnsignedInt(trailer);
+            final long size = getUnsignedInt(trailer + 4);
+
+            // The inflated size (ISIZE) is taken from the trailer, so check that it is consistent with the 
+            // compressed size (BSIZE) before allocating for it...
+            if(size > (long) (trailer - from) * MAX_DEFLATE_RATIO + MAX_DEFLATE_OVERHEAD) 
+                throw new ZipException("Corrupt gzip block (inflated size " + size + " inconsistent with block size " + member.length + ").");
+
+            final byte[] data = new byte[(int) size];
+
+            final Inflater inflater = new Inflater(true);
+
+            try {
+                inflater.setInput(member, from, trailer - from);
+                int n = 0;
+                while(n < data.length && !inflater.finished()) {
+                    final int k = inflater.inflate(data, n, data.length - n);
+                    if(k == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    n += k;
+                }
+                if(n != data.length) throw new ZipException("Corrupt gzip block (size mismatch).");
+            }
+            catch(DataFormatException e) { throw new ZipException(e.getMessage()); }
+            finally { inflater.end(); }
+
+            final CRC32 check = new CRC32();
+            check.update(data);
+            if(check.getValue() != crc) throw new ZipException("Corrupt gzip block (CRC mismatch).");
+
+            return data;
+        }
+
+        // Returns the index after the zero-terminated string starting at the specified index.
+        private int skipString(int from, int end) throws ZipException {
+            while(from < end) if(member[from++] == 0) return from;
+            throw new ZipException("Corrupt gzip block (unterminated header string).");
+        }
+
+        private long getUnsignedInt(int i) {
+            return (member[i] & 0xffL) | ((member[i+1] & 0xffL) << 8) | ((member[i+2] & 0xffL) << 16) | ((member[i+3] & 0xffL) << 24);
+        }
+    }
+
+
+    private static ExecutorService pool;
+
+    private static final int GZIP_ID1 = 0x1f;
+    private static final int GZIP_ID2 = 0x8b;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    // Deflate expands at most ~1032:1 (258-byte matches coded in 2 bits), plus a few bytes for an empty stream.
+    private static final int MAX_DEFLATE_RATIO = 1032;
+    private static final int MAX_DEFLATE_OVERHEAD = 16;
+
+    private static final int MAX_HEADER_SIZE = 65536 + 64;
+    private static final int IO_BUFFER_SIZE = 1 << 17;
+
+    private static final int STREAM_CHUNK_SIZE = 1 << 20;
+    private static final int STREAM_DEPTH = 4;
+    private static final int BLOCK_DEPTH = 4;
+}
@@ -0,0 +1,237 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush.fits;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import crush.CRUSH;
+
+/**
+ * 
+ * An output stream that compresses data with gzip on parallel threads. The data is split into fixed-size blocks, 
+ * which are deflated independently into separate gzip members, and written in order. The output is block-compressed 
+ * gzip (BGZF-style, each member carrying its compressed size in a 'BC' extra subfield, followed by an empty 
+ * end-of-file member), which any gzip reader can inflate, and which {@link ParallelGZIPInputStream} can inflate 
+ * in parallel also.
+ * <p>
+ * 
+ * The number of blocks being compressed ahead of the writer is bounded, so the memory overhead is small regardless
+ * of the amount of data written.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class ParallelGZIPOutputStream extends OutputStream {
+    private OutputStream out;
+
+    private ExecutorService pool;
+    private ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private int threads;
+    private int level;
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int size;
+
+    private boolean isClosed = false;
+
+    public ParallelGZIPOutputStream(File file) throws FileNotFoundException {
+        this(new FileOutputStream(file));
+    }
+
+    public ParallelGZIPOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION, CRUSH.maxThreads);
+    }
+
+    public ParallelGZIPOutputStream(OutputStream out, int level, int threads) {
+        this.out = out;
+        this.level = level;
+        this.threads = Math.max(1, threads);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if(isClosed) throw new IOException("Stream closed.");
+        block[size++] = (byte) b;
+        if(size == block.length) submitBlock();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if(isClosed) throw new IOException("Stream closed.");
+
+        while(len > 0) {
+            final int n = Math.min(len, block.length - size);
+            System.arraycopy(b, off, block, size, n);
+            size += n;
+            off += n;
+            len -= n;
+            if(size == block.length) submitBlock();
+        }
+    }
+
+    /**
+     * Compresses and writes all data written so far. Note, that each flush terminates the current gzip member, 
+     * so frequent flushing degrades compression.
+     */
+    @Override
+    public void flush() throws IOException {
+        if(isClosed) throw new IOException("Stream closed.");
+        if(size > 0) submitBlock();
+        while(!pending.isEmpty()) writeNext();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(isClosed) return;
+
+        try {
+            flush();
+            out.write(EOF_BLOCK);
+        }
+        finally {
+            isClosed = true;
+            for(Future<byte[]> future : pending) future.cancel(true);
+            pending.clear();
+            if(pool != null) pool.shutdownNow();
+            block = null;
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        pending.add(getPool().submit(new Block(block, size, level)));
+        block = new byte[BLOCK_SIZE];
+        size = 0;
+
+        // Apply back-pressure, s.t. we don't hold too many blocks in memory...
+        while(pending.size() >= DEPTH * threads) writeNext();
+    }
+
+    private void writeNext() throws IOException {
+        try { out.write(pending.removeFirst().get()); }
+        catch(InterruptedException e) { throw new InterruptedIOException(e.getMessage()); }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private synchronized ExecutorService getPool() {
+        if(pool == null) pool = Executors.newFixedThreadPool(threads, ParallelGZIPOutputStream::newDaemonThread);
+        return pool;
+    }
+
+    private static Thread newDaemonThread(Runnable r) {
+        Thread thread = new Thread(r, "gzip-deflater");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+
+    private static class Block implements Callable<byte[]> {
+        private byte[] data;
+        private int size;
+        private int level;
+
+        private Block(byte[] data, int size, int level) {
+            this.data = data;
+            this.size = size;
+            this.level = level;
+        }
+
+        @Override
+        public byte[] call() {
+            final byte[] member = new byte[HEADER_SIZE + size + MAX_OVERHEAD + 8];
+            int n = HEADER_SIZE;
+
+            final Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(data, 0, size);
+                deflater.finish();
+                while(!deflater.finished()) n += deflater.deflate(member, n, member.length - 8 - n);
+            }
+            finally { deflater.end(); }
+
+            final CRC32 crc = new CRC32();
+            crc.update(data, 0, size);
+
+            // The gzip header, with the 'BC' subfield containing the total member size - 1
+            member[0] = (byte) 0x1f;
+            member[1] = (byte) 0x8b;
+            member[2] = 8;          // deflate
+            member[3] = 4;          // FEXTRA
+            member[9] = (byte) 0xff;  // unknown OS
+            member[10] = 6;         // XLEN
+            member[12] = 'B';
+            member[13] = 'C';
+            member[14] = 2;         // SLEN
+            putShort(member, 16, n + 8 - 1);
+
+            putInt(member, n, (int) crc.getValue());
+            putInt(member, n + 4, size);
+            n += 8;
+
+            if(n == member.length) return member;
+
+            final byte[] trimmed = new byte[n];
+            System.arraycopy(member, 0, trimmed, 0, n);
+            return trimmed;
+        }
+
+        private static void putShort(byte[] b, int i, int value) {
+            b[i] = (byte) value;
+            b[i+1] = (byte) (value >>> 8);
+        }
+
+        private static void putInt(byte[] b, int i, int value) {
+            putShort(b, i, value);
+            putShort(b, i+2, value >>> 16);
+        }
+    }
+
+
+    // Blocks must compress to fewer than 64k bytes even if incompressible, for the member size to fit in 'BC'
+    private static final int BLOCK_SIZE = 0xff00;
+    private static final int HEADER_SIZE = 18;
+    private static final int MAX_OVERHEAD = 1024;
+    private static final int DEPTH = 4;
+
+    private static final byte[] EOF_BLOCK = { 
+            0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0, 0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0 
+    };
+}
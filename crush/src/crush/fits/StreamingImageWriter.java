@@ -0,0 +1,233 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush.fits;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import nom.tam.fits.HeaderCard;
+import nom.tam.fits.HeaderCardException;
+
+/**
+ * 
+ * Writes a 2D floating-point image (e.g. a time-stream with one row per frame and one column per channel) to a
+ * binary file, row by row, without holding the image in memory. Data is written through a direct buffer into a file 
+ * channel, or else into a {@link ParallelGZIPOutputStream} when compressed. Two formats are supported:
+ * 
+ * <ul>
+ * <li>{@link #FORMAT_FITS}: a standard FITS file, with the image in the primary HDU as 32-bit (big-endian) floats.</li>
+ * <li>{@link #FORMAT_RAW}: a simple raw format, with a small header followed by the image as 32-bit little-endian
+ * floats (native to most machines). The header starts with the 8-byte magic 'CRUSHRAW', followed by 32-bit 
+ * little-endian integers for the format version, the total header size in bytes, the number of columns and the 
+ * number of rows, and 8 reserved bytes. The remainder of the header holds the metadata as 80-character FITS-style 
+ * cards, the last one being 'END'.</li>
+ * </ul>
+ * 
+ * Values should be added in row-major order. Missing values are padded with NaN when closing.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class StreamingImageWriter implements Closeable {
+    private WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private int format;
+    private int cols, rows;
+    private long values = 0L;
+
+    private ArrayList<HeaderCard> cards = new ArrayList<>();
+    private boolean isStarted = false;
+
+    public StreamingImageWriter(File file, int format, int cols, int rows, boolean compress) throws IOException {
+        if(format != FORMAT_FITS && format != FORMAT_RAW) throw new IllegalArgumentException("Unknown binary format: " + format);
+
+        this.format = format;
+        this.cols = cols;
+        this.rows = rows;
+
+        if(compress) channel = Channels.newChannel(new ParallelGZIPOutputStream(file));
+        else channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.order(format == FORMAT_RAW ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    }
+
+    public int getFormat() { return format; }
+
+    public int getColumns() { return cols; }
+
+    public int getRows() { return rows; }
+
+    public void addValue(String key, String value, String comment) throws HeaderCardException {
+        addCard(new HeaderCard(key, value, comment));
+    }
+
+    public void addValue(String key, double value, String comment) throws HeaderCardException {
+        addCard(new HeaderCard(key, value, comment));
+    }
+
+    public void addValue(String key, int value, String comment) throws HeaderCardException {
+        addCard(new HeaderCard(key, value, comment));
+    }
+
+    private void addCard(HeaderCard card) {
+        if(isStarted) throw new IllegalStateException("Header already written.");
+        cards.add(card);
+    }
+
+    public void put(float value) throws IOException {
+        if(!isStarted) writeHeader();
+        if(values >= (long) cols * rows) throw new IllegalStateException("Image is already complete.");
+
+        if(buffer.remaining() < 4) flushBuffer();
+        buffer.putFloat(value);
+        values++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(channel == null) return;
+
+        try {
+            if(!isStarted) writeHeader();
+            for(long n = (long) cols * rows; values < n; ) put(Float.NaN);
+
+            // FITS data is padded (with zeroes) to full 2880-byte blocks
+            if(format == FORMAT_FITS) {
+                final int remainder = (int) ((values << 2) % FITS_BLOCK_SIZE);
+                if(remainder > 0) for(int i = FITS_BLOCK_SIZE - remainder; --i >= 0; ) {
+                    if(!buffer.hasRemaining()) flushBuffer();
+                    buffer.put((byte) 0);
+                }
+            }
+
+            flushBuffer();
+        }
+        finally {
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        isStarted = true;
+
+        final ArrayList<HeaderCard> header = new ArrayList<>(cards.size() + 5);
+
+        if(format == FORMAT_FITS) {
+            try {
+                header.add(new HeaderCard("SIMPLE", true, "Standard FITS file."));
+                header.add(new HeaderCard("BITPIX", -32, "32-bit floating point data."));
+                header.add(new HeaderCard("NAXIS", 2, "Dimensions."));
+                header.add(new HeaderCard("NAXIS1", cols, "Columns."));
+                header.add(new HeaderCard("NAXIS2", rows, "Rows."));
+            }
+            catch(HeaderCardException e) { throw new IOException(e); }
+        }
+
+        header.addAll(cards);
+
+        final StringBuilder text = new StringBuilder();
+        for(HeaderCard card : header) text.append(pad(card.toString(), CARD_SIZE));
+        text.append(pad("END", CARD_SIZE));
+
+        final byte[] cardBytes = (format == FORMAT_FITS ? pad(text.toString(), FITS_BLOCK_SIZE) : text.toString()).getBytes(StandardCharsets.US_ASCII);
+
+        if(format == FORMAT_RAW) {
+            buffer.put(RAW_MAGIC);
+            buffer.putInt(RAW_VERSION);
+            buffer.putInt(RAW_PREFIX_SIZE + cardBytes.length);
+            buffer.putInt(cols);
+            buffer.putInt(rows);
+            buffer.putLong(0L);
+        }
+
+        for(int i=0; i < cardBytes.length; ) {
+            if(!buffer.hasRemaining()) flushBuffer();
+            final int n = Math.min(buffer.remaining(), cardBytes.length - i);
+            buffer.put(cardBytes, i, n);
+            i += n;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    // Pads text with spaces to a multiple of the specified size.
+    private static String pad(String text, int size) {
+        final int remainder = text.length() % size;
+        if(remainder == 0) return text;
+
+        final StringBuilder padded = new StringBuilder(text);
+        for(int i = size - remainder; --i >= 0; ) padded.append(' ');
+        return padded.toString();
+    }
+
+    /**
+     * Returns the binary format for a format name, i.e. 'fits' or 'raw' (case insensitive).
+     * 
+     * @param name      The format name.
+     * @return          The corresponding format constant, or -1 if the name does not specify a binary format.
+     */
+    public static int getFormat(String name) {
+        if(name.equalsIgnoreCase("fits")) return FORMAT_FITS;
+        if(name.equalsIgnoreCase("raw")) return FORMAT_RAW;
+        return -1;
+    }
+
+    /**
+     * Returns the conventional file name extension (including the leading dot) for a binary format.
+     * 
+     * @param format    The binary format constant.
+     * @return          The file name extension, e.g. ".fits".
+     */
+    public static String getExtension(int format) {
+        return format == FORMAT_RAW ? ".raw" : ".fits";
+    }
+
+
+    public static final int FORMAT_FITS = 0;
+    public static final int FORMAT_RAW = 1;
+
+    private static final byte[] RAW_MAGIC = "CRUSHRAW".getBytes(StandardCharsets.US_ASCII);
+    private static final int RAW_VERSION = 1;
+    private static final int RAW_PREFIX_SIZE = 32;
+
+    private static final int CARD_SIZE = 80;
+    private static final int FITS_BLOCK_SIZE = 2880;
+    private static final int BUFFER_SIZE = 1 << 20;
+}
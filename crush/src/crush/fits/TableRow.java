@@ -0,0 +1,62 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush.fits;
+
+/**
+ * 
+ * Primitive access to the elements of a single row in a FITS binary table, regardless of how the row is stored
+ * (e.g. as decoded Java arrays, or as raw big-endian bytes). Multi-dimensional column entries are addressed by 
+ * their flattened element index, in the order they are stored in the FITS (i.e. with the last Java index varying
+ * fastest).
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public interface TableRow {
+
+    public byte getByte(int col, int i);
+
+    public short getShort(int col, int i);
+
+    public int getInt(int col, int i);
+
+    public long getLong(int col, int i);
+
+    public float getFloat(int col, int i);
+
+    public double getDouble(int col, int i);
+
+    public default byte getByte(int col) { return getByte(col, 0); }
+
+    public default short getShort(int col) { return getShort(col, 0); }
+
+    public default int getInt(int col) { return getInt(col, 0); }
+
+    public default long getLong(int col) { return getLong(col, 0); }
+
+    public default float getFloat(int col) { return getFloat(col, 0); }
+
+    public default double getDouble(int col) { return getDouble(col, 0); }
+
+}
@@ -22,31 +22,127 @@
  ******************************************************************************/
 package crush.instrument;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.util.List;
 
 import crush.Channel;
 import crush.Mode;
 
+/**
+ * A gain provider that reads and writes channel gains from/to a numerical field of the channel class. The field is 
+ * bound once, to method handles, which are adapted to take any {@link Channel} and return (or take) a 
+ * <code>double</code> value, regardless of the actual field type (e.g. <code>float</code> or <code>double</code>).
+ * Gains are thus accessed without reflective lookups and access checks on every call. Reflection is used only as a 
+ * fallback, if the field cannot be bound to method handles.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
 public class FieldGainProvider implements GainProvider {
-	private Field gainField;
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -1826452932446105398L;
+
+	private Class<?> declaringClass;
+	private String fieldName;
+	
+	private transient Field gainField;
+	private transient MethodHandle getter, setter;
 	
 	public FieldGainProvider(Field f) {
 		this.gainField = f;
+		declaringClass = f.getDeclaringClass();
+		fieldName = f.getName();
+		bind();
+	}
+	
+	private void bind() {
+		final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		
+		try { getter = MethodHandles.explicitCastArguments(lookup.unreflectGetter(gainField), MethodType.methodType(double.class, Channel.class)); }
+		catch(IllegalAccessException e) { getter = null; }
+		
+		try { setter = MethodHandles.explicitCastArguments(lookup.unreflectSetter(gainField), MethodType.methodType(void.class, Channel.class, double.class)); }
+		catch(IllegalAccessException e) { setter = null; }
+	}
+	
+	public Field getField() { return gainField; }
+	
+	@Override
+	public double getGain(Channel c) throws Exception {
+		if(getter == null) return gainField.getDouble(c);
+		
+		try { return (double) getter.invokeExact(c); }
+		catch(Exception | Error e) { throw e; }
+		catch(Throwable t) { throw new IllegalStateException(t); }
 	}
 	
 	@Override
-	public double getGain(Channel c) throws IllegalAccessException {
-		return gainField.getDouble(c);
+	public void setGain(Channel c, double value) throws Exception {
+		if(setter == null) {
+			if(gainField.getType().equals(float.class)) gainField.setFloat(c, (float) value);
+			else gainField.setDouble(c, value);
+			return;
+		}
+		
+		try { setter.invokeExact(c, value); }
+		catch(Exception | Error e) { throw e; }
+		catch(Throwable t) { throw new IllegalStateException(t); }
 	}
 	
 	@Override
-	public void setGain(Channel c, double value) throws IllegalAccessException {
-		Class<?> fieldClass = gainField.getClass();
-		if(fieldClass.equals(float.class)) gainField.setFloat(c, (float) value);
-		else gainField.setDouble(c, value);
+	public void getGains(List<? extends Channel> channels, float[] gain) throws Exception {
+		if(getter == null) {
+			GainProvider.super.getGains(channels, gain);
+			return;
+		}
+		
+		try {
+			for(int c=channels.size(); --c >= 0; ) {
+				final Channel channel = channels.get(c);
+				gain[c] = (float) (double) getter.invokeExact(channel);
+			}
+		}
+		catch(Exception | Error e) { throw e; }
+		catch(Throwable t) { throw new IllegalStateException(t); }
+	}
+	
+	@Override
+	public void setGains(List<? extends Channel> channels, float[] gain) throws Exception {
+		if(setter == null) {
+			GainProvider.super.setGains(channels, gain);
+			return;
+		}
+		
+		try {
+			for(int c=channels.size(); --c >= 0; ) {
+				final Channel channel = channels.get(c);
+				setter.invokeExact(channel, (double) gain[c]);
+			}
+		}
+		catch(Exception | Error e) { throw e; }
+		catch(Throwable t) { throw new IllegalStateException(t); }
 	}
 	
 	@Override
 	public void validate(Mode mode) throws Exception {}
 	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		
+		try { gainField = declaringClass.getField(fieldName); }
+		catch(NoSuchFieldException e) { 
+			try { gainField = declaringClass.getDeclaredField(fieldName); }
+			catch(NoSuchFieldException e2) { throw new IOException("No gain field '" + fieldName + "' in " + declaringClass.getName()); }
+		}
+		
+		bind();
+	}
+	
 }
@@ -22,14 +22,48 @@
  ******************************************************************************/
 package crush.instrument;
 
+import java.io.Serializable;
+import java.util.List;
+
 import crush.Channel;
 import crush.Mode;
 
-public interface GainProvider {
+/**
+ * Provides the gains of channels for a {@link Mode}. Gain providers are part of the modes, and thus of the scans, 
+ * which may be serialized (e.g. by the {@link crush.ScanCache}), so implementations must be serializable too.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public interface GainProvider extends Serializable {
 
 	public double getGain(Channel c) throws Exception;
 	
 	public void setGain(Channel c, double value) throws Exception;
 	
+	/**
+	 * Gets the gains of all channels in a list at once. Implementations may override it to access the gains more 
+	 * efficiently than one {@link #getGain(Channel)} call per channel.
+	 * 
+	 * @param channels		The channels.
+	 * @param gain			The array into which to store the gains, in the same order as the channels.
+	 * @throws Exception
+	 */
+	public default void getGains(List<? extends Channel> channels, float[] gain) throws Exception {
+		for(int c=channels.size(); --c >= 0; ) gain[c] = (float) getGain(channels.get(c));
+	}
+	
+	/**
+	 * Sets the gains of all channels in a list at once. Implementations may override it to access the gains more 
+	 * efficiently than one {@link #setGain(Channel, double)} call per channel.
+	 * 
+	 * @param channels		The channels.
+	 * @param gain			The gains to set, in the same order as the channels.
+	 * @throws Exception
+	 */
+	public default void setGains(List<? extends Channel> channels, float[] gain) throws Exception {
+		for(int c=channels.size(); --c >= 0; ) setGain(channels.get(c), gain[c]);
+	}
+	
 	public void validate(Mode mode) throws Exception;
 }
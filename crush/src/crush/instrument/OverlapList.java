@@ -0,0 +1,85 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+
+package crush.instrument;
+
+import java.util.Arrays;
+
+/**
+ * 
+ * A compact list of the neighbours that overlap with a given channel (or pixel), and the corresponding overlap values.
+ * Neighbours and overlaps are stored in parallel arrays, instead of as individual {@link Overlap} objects in a hashed 
+ * collection, which keeps the memory footprint small and iteration fast, even for arrays with many thousands of 
+ * pixels. Each list is owned by (and filled for) a single channel, s.t. the lists of different channels may be 
+ * populated concurrently without synchronization.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ * @param <Type>	The type of the neighbours (e.g. channels or pixels).
+ */
+public class OverlapList<Type> {
+	private Object[] neighbours;
+	private float[] overlap;
+	private int size = 0;
+	
+	public OverlapList() {
+		this(8);
+	}
+	
+	public OverlapList(int capacity) {
+		neighbours = new Object[Math.max(1, capacity)];
+		overlap = new float[neighbours.length];
+	}
+	
+	public void add(Type neighbour, double value) {
+		if(size == neighbours.length) {
+			final int capacity = Math.max(8, size << 1);
+			neighbours = Arrays.copyOf(neighbours, capacity);
+			overlap = Arrays.copyOf(overlap, capacity);
+		}
+		neighbours[size] = neighbour;
+		overlap[size] = (float) value;
+		size++;
+	}
+	
+	public int size() { return size; }
+	
+	public boolean isEmpty() { return size == 0; }
+	
+	@SuppressWarnings("unchecked")
+	public Type get(int i) { return (Type) neighbours[i]; }
+	
+	public double getOverlap(int i) { return overlap[i]; }
+	
+	public void clear() {
+		Arrays.fill(neighbours, 0, size, null);
+		size = 0;
+	}
+	
+	public void trimToSize() {
+		if(size == neighbours.length) return;
+		neighbours = Arrays.copyOf(neighbours, size);
+		overlap = Arrays.copyOf(overlap, size);
+	}
+}
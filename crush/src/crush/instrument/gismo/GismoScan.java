@@ -25,6 +25,7 @@
 package crush.instrument.gismo;
 
 import crush.*;
+import crush.fits.ParallelGZIPInputStream;
 import crush.telescope.GroundBasedScan;
 import crush.telescope.PointingTable;
 import crush.telescope.iram.IRAMPointingModel;
@@ -160,6 +161,12 @@ class GismoScan extends GroundBasedScan<GismoIntegration> implements Weather {
 		return info;
 	}
 
+	@Override
+	public File getDataFile(String descriptor) {
+		try { return getFile(descriptor); }
+		catch(FileNotFoundException e) { return null; }
+	}
+	
 	private File getFile(String scanDescriptor) throws FileNotFoundException {
 		File scanFile;
 
@@ -238,7 +245,8 @@ class GismoScan extends GroundBasedScan<GismoIntegration> implements Weather {
 		File file = getFile(scanDescriptor);
 		boolean isCompressed = file.getName().endsWith(".gz");
 		info("Reading " + file.getPath() + "...");
-		return new Fits(getFile(scanDescriptor), isCompressed);
+		if(isCompressed) return new Fits(new ParallelGZIPInputStream(file));
+		return new Fits(file);
 	}
 	
 	private void setVersionOptions(double ver) {
@@ -490,8 +498,8 @@ class GismoScan extends GroundBasedScan<GismoIntegration> implements Weather {
 				try {
 					String timeZone = hasOption("tau.timezone") ? option("tau.timezone").getValue() : "UTC";
 					IRAMTauTable table = IRAMTauTable.get(option("tau.225ghz").getPath(), timeZone);
-					if(hasOption("tau.window")) table.timeWindow = option("tau.window").getDouble() * Unit.hour;
-					tau225GHz = table.getTau(getMJD());
+					double window = hasOption("tau.window") ? option("tau.window").getDouble() * Unit.hour : table.timeWindow;
+					tau225GHz = table.getTau(getMJD(), window);
 					getOptions().processSilent("tau.225ghz", tau225GHz + "");
 				}
 				catch(IOException e2) {
@@ -643,8 +651,8 @@ class GismoScan extends GroundBasedScan<GismoIntegration> implements Weather {
 				try {
 					String timeZone = hasOption("tau.timezone") ? option("tau.timezone").getValue() : "UTC";
 					IRAMTauTable table = IRAMTauTable.get(option("tau.225ghz").getPath(), timeZone);
-					if(hasOption("tau.window")) table.timeWindow = option("tau.window").getDouble() * Unit.hour;
-					tau225GHz = table.getTau(getMJD());
+					double window = hasOption("tau.window") ? option("tau.window").getDouble() * Unit.hour : table.timeWindow;
+					tau225GHz = table.getTau(getMJD(), window);
 					getOptions().processSilent("tau.225ghz", tau225GHz + "");
 				}
 				catch(IOException e2) { 
@@ -27,6 +27,7 @@ package crush.instrument.hawcplus;
 import crush.Channel;
 import crush.Frame;
 import crush.Instrument;
+import crush.fits.TableRow;
 import crush.telescope.sofia.SofiaFrame;
 import jnum.astro.GeodeticCoordinates;
 import jnum.math.Vector2D;
@@ -87,14 +88,20 @@ class HawcFrame extends SofiaFrame {
         }
     }
     
-    void parseData(int[][] DAC, short[][] jump) {  
+    void parseData(TableRow row, int iDAC, int iJump, int storeCols) {  
         Hawc hawc = getScan().getInstrument();
         
-        if(jump != null) jumpCounter = new byte[data.length];
+        final float[] renorm = hawc.subarrayGainRenorm;
         
-        for(final HawcPixel pixel : hawc) {
-            data[pixel.getIndex()] = DAC[pixel.fitsRow][pixel.fitsCol] / hawc.subarrayGainRenorm[pixel.sub];
-            if(jump != null) jumpCounter[pixel.getIndex()] = (byte) jump[pixel.fitsRow][pixel.fitsCol];
+        // Reuse the jump counter storage of a frame that is parsed again...
+        if(iJump >= 0) if(jumpCounter == null || jumpCounter.length != data.length) jumpCounter = new byte[data.length];
+        
+        // Indexed loop, so no iterator is created for each frame...
+        for(int p=hawc.size(); --p >= 0; ) {
+            final HawcPixel pixel = hawc.get(p);
+            final int k = pixel.fitsRow * storeCols + pixel.fitsCol;
+            data[pixel.getIndex()] = row.getInt(iDAC, k) / renorm[pixel.sub];
+            if(iJump >= 0) jumpCounter[pixel.getIndex()] = (byte) row.getShort(iJump, k);
         }
     }
 
@@ -174,10 +181,10 @@ class HawcFrame extends SofiaFrame {
                 horizontalOffset.add(chopperPosition);
                 horizontal.addOffset(chopperPosition);
 
-                Vector2D offset = chopperPosition.copy();
-                
+                // The chopper position may be shared with other frames (e.g. after a chopper shift, or
+                // cloned readouts), which may be validated concurrently, so rotate a local copy only...
+                final Vector2D offset = chopperPosition.copy();
                 horizontalToNativeEquatorial(offset);
-                
                 equatorial.addNativeOffset(offset);
             }
 
@@ -24,13 +24,20 @@
 package crush.instrument.hawcplus;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
 
 import crush.CRUSH;
 import crush.Channel;
 import crush.Dependents;
 import crush.Frame;
+import crush.fits.HDUBlockReader;
 import crush.fits.HDURowReader;
+import crush.fits.ObjectTableRow;
+import crush.fits.TableRow;
 import crush.telescope.sofia.SofiaChopperData;
 import crush.telescope.sofia.SofiaIntegration;
 import jnum.Unit;
@@ -51,6 +58,9 @@ class HawcIntegration extends SofiaIntegration<HawcFrame> {
 
     private Dependents driftParms;
 
+    private Decimator decimator;
+    private FullRatePrepass prepass;
+
     HawcIntegration(HawcScan parent) {
         super(parent);
     }	
@@ -80,30 +90,145 @@ class HawcIntegration extends SofiaIntegration<HawcFrame> {
                 + Util.f1.format(getInstrument().samplingInterval * records / Unit.min) + " minutes.");
 
         clear();
-        ensureCapacity(records);
-        for(int t=records; --t>=0; ) add(null);
 
-        for(int i=0; i<dataHDUs.size(); i++) 
-            new HawcPlusRowReader(dataHDUs.get(i), getScan().fits.getStream()).read(1);	
+        final int downsampling = getReadDownsampling();
+
+        if(downsampling > 1) {
+            // Frames are downsampled as they are read, in order, using a single reader thread...
+            getScan().configureFrameValidation();
+            decimator = new Decimator(downsampling);
+            prepass = new FullRatePrepass();
+            ensureCapacity(records / downsampling + 1);
+        }
+        else {
+            ensureCapacity(records);
+            for(int t=records; --t>=0; ) add(null);
+        }
+
+        // Uncompressed data can be decoded directly from the file, in parallel blocks of rows...
+        final File file = getScan().fitsFile;
+        FileChannel channel = null;
+
+        if(decimator == null && file != null && !file.getName().endsWith(".gz")) {
+            try { channel = FileChannel.open(file.toPath(), StandardOpenOption.READ); }
+            catch(IOException e) { warning("Cannot open " + file.getName() + " for block reading: " + e.getMessage()); }
+        }
+
+        try {
+            for(int i=0; i<dataHDUs.size(); i++) {
+                final BinaryTableHDU hdu = dataHDUs.get(i);
+                
+                if(channel != null) {
+                    try { 
+                        new HawcPlusBlockReader(hdu, channel).read(); 
+                        continue;
+                    }
+                    catch(FitsException e) { debug("Cannot block read HDU: " + e.getMessage()); }
+                }
+                
+                new HawcPlusRowReader(hdu, getScan().fits.getStream()).read(1);
+            }
+        }
+        finally {
+            if(channel != null) channel.close();
+        }
+
+        if(decimator != null) {
+            prepass.finish();
+            prepass = null;
+            decimator.finish();
+            decimator = null;
+        }
     }
 
     private class HawcPlusRowReader extends HDURowReader { 
+        private final HawcPlusRowParser parser;
+
+        HawcPlusRowReader(BinaryTableHDU hdu, ArrayDataInput in) throws FitsException {
+            super(hdu, in);
+            parser = new HawcPlusRowParser(hdu);
+        }
+
+        @Override
+        public Reader getReader() {
+            return new Reader() {   
+                private HawcPlusRowParser.Context context;
+                private ObjectTableRow tableRow;
+
+                @Override
+                public void init() {
+                    super.init();
+                    context = parser.getContext();
+                    tableRow = new ObjectTableRow();
+                }
+
+                @Override
+                public void processRow(int i, Object[] row) {  
+                    tableRow.setRow(row);
+                    
+                    final HawcFrame frame = context.parse(i, tableRow);
+                    
+                    if(decimator != null) prepass.add(frame);
+                    else set(i, frame);
+                }
+            };
+        }
+    }   
+
+    private class HawcPlusBlockReader extends HDUBlockReader { 
+        private final HawcPlusRowParser parser;
+
+        HawcPlusBlockReader(BinaryTableHDU hdu, FileChannel channel) throws FitsException {
+            super(hdu, channel);
+            parser = new HawcPlusRowParser(hdu);
+        }
+
+        @Override
+        public void read(int threadCount) throws Exception {
+            // Configure from the leading row(s), in order, before the blocks are parsed in parallel...
+            parser.configure(this);
+            super.read(threadCount);
+        }
+
+        @Override
+        public Reader getReader() {
+            return new Reader() {   
+                private HawcPlusRowParser.Context context;
+
+                @Override
+                public void init() {
+                    super.init();
+                    context = parser.getContext();
+                }
+
+                @Override
+                public void processRow(int i, TableRow row) {  
+                    set(i, context.parse(i, row));
+                }
+            };
+        }
+    }   
+
+    // Package access for parsing frames in the benchmarks...
+    class HawcPlusRowParser { 
         private int iSN=-1, iDAC=-1, iJump=-1, iTS=-1;
         private int iAZ=-1, iEL=-1, iRA=-1, iDEC=-1, iAVPA=-1, iTVPA=-1, iCVPA=-1;
         private int iLON=-1, iLAT=-1, iLST=-1, iPWV=-1, iORA=-1, iODEC=-1;
         private int iChopR=-1, iChopS=-1, iHWP=-1, iStat=-1;
         private int iLOS=-1, iRoll=-1;
 
+        private int storeRows = HawcFrame.FITS_ROWS, storeCols = HawcFrame.FITS_COLS;
+
         private boolean isLab;
-        private boolean isConfigured = false;
+        
+        // Set (together with iORA and iODEC) by configure(), which happens-before the parsing of rows that check it. 
+        private volatile boolean isConfigured = false;
 
         private boolean invertChop = false;
 
         private final HawcScan hawcScan = getScan();
 
-        HawcPlusRowReader(BinaryTableHDU hdu, ArrayDataInput in) throws FitsException {
-            super(hdu, in);
-
+        HawcPlusRowParser(BinaryTableHDU hdu) {
             isLab = hasOption("lab");
 
             invertChop = hasOption("chopper.invert");
@@ -114,6 +239,12 @@ class HawcIntegration extends SofiaIntegration<HawcFrame> {
 
             iJump = hdu.findColumn("FluxJumps");
             iDAC = hdu.findColumn("SQ1Feedback");
+            
+            int[] dims = HDUBlockReader.getDimensions(hdu, iDAC);
+            if(dims != null && dims.length == 2) {
+                storeRows = dims[0];
+                storeCols = dims[1];
+            }
 
             // HWP may be used in the future if support is extended for
             // scan-mode polarimetry (or polarimetry, in general...
@@ -157,17 +288,34 @@ class HawcIntegration extends SofiaIntegration<HawcFrame> {
             iRoll = hdu.findColumn("ROLL");
         }
 
-        private synchronized void configure(Object[] row) {
+        /**
+         * Configures the parser from the first row that has telescope data, reading the leading rows of the table 
+         * in order. Called before the rows are parsed in parallel blocks, s.t. the configuration does not depend
+         * on which block happens to be parsed first.
+         * 
+         * @param reader    The block reader of the table.
+         * @throws IOException  If the leading rows could not be read.
+         */
+        void configure(HDUBlockReader reader) throws IOException {
+            if(isLab) return;
+            
+            for(int i=0; i<reader.getRows(); i++) {
+                final TableRow row = reader.getRow(i);
+                if(Double.isNaN(row.getDouble(iRA))) continue;
+                configure(row);
+                return;
+            }
+        }
+        
+        private synchronized void configure(TableRow row) {
             if(isConfigured) return;
 
-            int storeRows = ((int[][]) row[iDAC]).length;
-            int storeCols = ((int[][]) row[iDAC])[0].length;
             info("FITS has " + storeRows + "x" + storeCols + " arrays.");
 
             if(getScan().equatorial == null) 
-                getScan().equatorial = new EquatorialCoordinates(((double[]) row[iRA])[0] * Unit.hourAngle, ((double[]) row[iDEC])[0] * Unit.deg, CoordinateEpoch.J2000);
+                getScan().equatorial = new EquatorialCoordinates(row.getDouble(iRA) * Unit.hourAngle, row.getDouble(iDEC) * Unit.deg, CoordinateEpoch.J2000);
 
-            if(iORA >= 0) if(Double.isNaN(((double[]) row[iORA])[0])) {
+            if(iORA >= 0) if(Double.isNaN(row.getDouble(iORA))) {
                 iORA = iODEC = -1;
                 if(hawcScan.isNonSidereal) warning("Missing NonSiderealRA/NonSiderealDEC columns. Forcing sidereal mapping.");
                 hawcScan.isNonSidereal = false;        
@@ -176,156 +324,158 @@ class HawcIntegration extends SofiaIntegration<HawcFrame> {
             isConfigured = true;
         }
 
+        Context getContext() { return new Context(); }
 
-        @Override
-        public Reader getReader() {
-            return new Reader() {   
-                private AstroTime timeStamp;
-                private EquatorialCoordinates apparent;
-                private CoordinateEpoch epoch;
-
-                @Override
-                public void init() {
-                    super.init();
-
-                    timeStamp = new AstroTime();
-                    apparent = new EquatorialCoordinates(); 
-                    epoch = hawcScan.telescope.epoch;
-                }
+        /**
+         * Per-thread parsing state (reused scratch objects), for parsing rows concurrently.
+         */
+        class Context {
+            private AstroTime timeStamp = new AstroTime();
+            private EquatorialCoordinates apparent = new EquatorialCoordinates(); 
+            private CoordinateEpoch epoch = hawcScan.telescope.epoch;
+            
+            HawcFrame parse(int i, TableRow row) {
+                // Create the frame object only if it cleared the above hurdles...
+                final HawcFrame frame = getFrameInstance();
+                frame.index = i;
+                
+                parseRow(frame, row);
+                
+                return frame;
+            }
 
-                @Override
-                public void processRow(int i, Object[] row) {                    
-                    Hawc hawc = getInstrument();
+            void parseRow(final HawcFrame frame, TableRow row) {
+                Hawc hawc = getInstrument();
+            
+                frame.isComplete = false;
+                frame.hasTelescopeInfo = !isLab;
 
-                    // Create the frame object only if it cleared the above hurdles...
-                    final HawcFrame frame = getFrameInstance();
-                    frame.index = i;
-                    frame.isComplete = false;
-                    frame.hasTelescopeInfo = !isLab;
+                // Read the pixel data (DAC and MCE jump counter)
+                frame.parseData(row, iDAC, iJump, storeCols);
+                frame.mceSerial = iSN < 0 ? 0 : row.getLong(iSN);
 
-                    // Read the pixel data (DAC and MCE jump counter)
-                    frame.parseData((int[][]) row[iDAC], (short[][]) row[iJump]);
-                    frame.mceSerial = iSN < 0 ? 0 : ((long[]) row[iSN])[0];
+                frame.utc = row.getDouble(iTS);
+                timeStamp.setUTC(frame.utc);
+                frame.MJD = timeStamp.getMJD();
 
-                    frame.utc = ((double[]) row[iTS])[0];
-                    timeStamp.setUTC(frame.utc);
-                    frame.MJD = timeStamp.getMJD();
+                frame.hwpAngle = iHWP < 0 ? 0.0F : (float) (row.getInt(iHWP) * Hawc.hwpStep - hawc.hwpTelescopeVertical);
 
-                    frame.hwpAngle = iHWP < 0 ? 0.0F : (float) (((int[]) row[iHWP])[0] * Hawc.hwpStep - hawc.hwpTelescopeVertical);
+                if(frame.hasTelescopeInfo) frame.hasTelescopeInfo = !Double.isNaN(row.getDouble(iRA));
 
-                    set(i, frame);
+                if(!frame.hasTelescopeInfo) {
+                    if(isLab) frame.isComplete = true;
+                    return;
+                }
 
-                    if(frame.hasTelescopeInfo) frame.hasTelescopeInfo = !Double.isNaN(((double[]) row[iRA])[0]);
+                // ======================================================================================
+                // Below here is telescope data only, which will be ignored for 'lab' mode reductions...
+                // Add the astrometry...
+                // ======================================================================================
 
-                    if(!frame.hasTelescopeInfo) {
-                        if(isLab) frame.isComplete = true;
-                        return;
-                    }
+                frame.status = row.getInt(iStat);       
 
-                    // ======================================================================================
-                    // Below here is telescope data only, which will be ignored for 'lab' mode reductions...
-                    // Add the astrometry...
-                    // ======================================================================================
+                if(!isConfigured) configure(row);
 
-                    frame.status = ((int[]) row[iStat])[0];       
+                final double pwv = row.getDouble(iPWV);
+                frame.PWV = pwv < 0.0 ? Double.NaN : pwv * Unit.um;
+            
+                // The coordinates are created with the frame, and set in place when the frame is parsed again...
+                if(frame.site == null) frame.site = new GeodeticCoordinates();
+                frame.site.setLongitude(iLON < 0 ? 0.0 : row.getDouble(iLON) * Unit.deg);
+                frame.site.setLatitude(iLAT < 0 ? 0.0 : row.getDouble(iLAT) * Unit.deg);
+                
+                frame.LST = row.getDouble(iLST) * (float) Unit.hour;
 
-                    if(!isConfigured) configure(row);
+                frame.equatorial = setEquatorial(frame.equatorial, row.getDouble(iRA), row.getDouble(iDEC));
 
-                    final double pwv = ((double[]) row[iPWV])[0];
-                    frame.PWV = pwv < 0.0 ? Double.NaN : pwv * Unit.um;
-                    
-                    frame.site = new GeodeticCoordinates(
-                            iLON < 0 ? 0.0 : ((double[]) row[iLON])[0] * Unit.deg, 
-                            iLAT < 0 ? 0.0 :((double[]) row[iLAT])[0] * Unit.deg
-                    );  
-                    frame.LST = ((double[]) row[iLST])[0] * (float) Unit.hour;
-
-                    frame.equatorial = new EquatorialCoordinates(
-                            ((double[]) row[iRA])[0] * Unit.hourAngle, 
-                            ((double[]) row[iDEC])[0] * Unit.deg, 
-                            epoch
-                            );                             
-
-                    if(hawcScan.isNonSidereal && iORA >= 0 && iODEC >= 0) {
-                        frame.objectEq = new EquatorialCoordinates(
-                                ((double[]) row[iORA])[0] * Unit.hourAngle, 
-                                ((double[]) row[iODEC])[0] * Unit.deg, 
-                                epoch
-                                );
-                    }
+                if(hawcScan.isNonSidereal && iORA >= 0 && iODEC >= 0) {
+                    frame.objectEq = setEquatorial(frame.objectEq, row.getDouble(iORA), row.getDouble(iODEC));
+                }
 
-                    EquatorialCoordinates reference = hawcScan.isNonSidereal ? frame.objectEq : getScan().equatorial;
-
-                    // I  -> T      rot by phi (instrument rotation)
-                    // T' -> E      rot by -theta_ta
-                    // T  -> H      rot by ROF
-                    // H  -> E'     rot by PA
-                    // I' -> E      rot by -theta_si
-                    //
-                    // T -> H -> E': theta_ta = ROF + PA
-                    //
-                    //    PA = theta_ta - ROF
-                    //
-                    // I -> T -> E': theta_si = phi - theta_ta
-                    //
-                    //    phi = theta_si - theta_ta
-                    //
-                    frame.instrumentVPA = ((double[]) row[iAVPA])[0] * Unit.deg;
-                    frame.telescopeVPA = ((double[]) row[iTVPA])[0] * Unit.deg;
-                    frame.chopVPA = ((double[]) row[iCVPA])[0] * Unit.deg;
-
-                    // rotation from pixel coordinates to telescope coordinates...  
-                    frame.setRotation(frame.instrumentVPA - frame.telescopeVPA);
-
-                    // rotation from telescope coordinates to equatorial.
-                    frame.setParallacticAngle(frame.telescopeVPA);
-
-                    // Calculate the scanning offsets...
-                    frame.horizontalOffset = frame.equatorial.getNativeOffsetFrom(reference);
-                    frame.equatorialNativeToHorizontal(frame.horizontalOffset);
-
-                    // In telescope XEL (phiS), EL (phiR)
-                    frame.chopperPosition = new Vector2D(
-                            iChopS < 0 ? 0.0 : -((float[]) row[iChopS])[0] * Unit.V, 
-                            iChopR < 0 ? 0.0 : -((float[]) row[iChopR])[0] * Unit.V
-                    );
-
-                    // TODO empirical scaling...
-                    frame.chopperPosition.scale(SofiaChopperData.volts2Angle);
-
-                    if(invertChop) frame.chopperPosition.invert();
+                EquatorialCoordinates reference = hawcScan.isNonSidereal ? frame.objectEq : getScan().equatorial;
+
+                // I  -> T      rot by phi (instrument rotation)
+                // T' -> E      rot by -theta_ta
+                // T  -> H      rot by ROF
+                // H  -> E'     rot by PA
+                // I' -> E      rot by -theta_si
+                //
+                // T -> H -> E': theta_ta = ROF + PA
+                //
+                //    PA = theta_ta - ROF
+                //
+                // I -> T -> E': theta_si = phi - theta_ta
+                //
+                //    phi = theta_si - theta_ta
+                //
+                frame.instrumentVPA = row.getDouble(iAVPA) * Unit.deg;
+                frame.telescopeVPA = row.getDouble(iTVPA) * Unit.deg;
+                frame.chopVPA = row.getDouble(iCVPA) * Unit.deg;
+
+                // rotation from pixel coordinates to telescope coordinates...  
+                frame.setRotation(frame.instrumentVPA - frame.telescopeVPA);
+
+                // rotation from telescope coordinates to equatorial.
+                frame.setParallacticAngle(frame.telescopeVPA);
+
+                // Calculate the scanning offsets...
+                if(frame.horizontalOffset == null) frame.horizontalOffset = new Vector2D();
+                frame.equatorial.getNativeOffsetFrom(reference, frame.horizontalOffset);
+                frame.equatorialNativeToHorizontal(frame.horizontalOffset);
+
+                // In telescope XEL (phiS), EL (phiR)
+                frame.chopperPosition.set(
+                        iChopS < 0 ? 0.0 : -row.getFloat(iChopS) * Unit.V, 
+                        iChopR < 0 ? 0.0 : -row.getFloat(iChopR) * Unit.V
+                );
+
+                // TODO empirical scaling...
+                frame.chopperPosition.scale(SofiaChopperData.volts2Angle);
+
+                if(invertChop) frame.chopperPosition.invert();
       
-                    // Rotate the chopper offset into the TA frame...
-                    // C -> E' rot by theta_cp
-                    // T -> E' rot by theta_ta
-                    // C -> T rot by theta_cp - theta_ta
-                    frame.chopperPosition.rotate(frame.chopVPA - frame.telescopeVPA);
-                   
-                    // TODO if MCCS fixes alt/az inconsistency then we can just rely on their data...
-                    //frame.horizontal = new HorizontalCoordinates(((double[]) row[iAZ])[0] * Unit.deg, ((double[]) row[iEL])[0] * Unit.deg);                
-                    //frame.telescopeCoords = new TelescopeCoordinates(frame.horizontal);
-
-                    // If the longitude/latitude data is missing then do not attempt to
-                    // calculate horizontal coordinates...
-                    if(!Double.isNaN(frame.site.longitude())) {
-                        // Calculate AZ/EL -- the values in the table are noisy aircraft values...  
-                        apparent.copy(frame.equatorial);
-                        getScan().toApparent.precess(apparent);
-                        frame.horizontal = apparent.toHorizontal(frame.site, frame.LST);
-                    }
-                    else if(iAZ >= 0 && iEL >= 0) {
-                        frame.horizontal = new HorizontalCoordinates(((double[]) row[iAZ])[0] * Unit.deg, ((double[]) row[iEL])[0] * Unit.deg);
-                    }
-                    
-                    frame.LOS = iLOS < 0 ? 0.0F : (float) (((double[]) row[iLOS])[0] * Unit.deg);
-                    frame.roll = iRoll < 0 ? 0.0F : (float) (((double[]) row[iRoll])[0] * Unit.deg);
-                    
-                    frame.isComplete = true;
+                // Rotate the chopper offset into the TA frame...
+                // C -> E' rot by theta_cp
+                // T -> E' rot by theta_ta
+                // C -> T rot by theta_cp - theta_ta
+                frame.chopperPosition.rotate(frame.chopVPA - frame.telescopeVPA);
+           
+                // TODO if MCCS fixes alt/az inconsistency then we can just rely on their data...
+                //frame.horizontal = new HorizontalCoordinates(row.getDouble(iAZ) * Unit.deg, row.getDouble(iEL) * Unit.deg);                
+                //frame.telescopeCoords = new TelescopeCoordinates(frame.horizontal);
+
+                // If the longitude/latitude data is missing then do not attempt to
+                // calculate horizontal coordinates...
+                if(!Double.isNaN(frame.site.longitude())) {
+                    // Calculate AZ/EL -- the values in the table are noisy aircraft values...  
+                    apparent.copy(frame.equatorial);
+                    getScan().toApparent.precess(apparent);
+                    if(frame.horizontal == null) frame.horizontal = new HorizontalCoordinates();
+                    apparent.toHorizontal(frame.horizontal, frame.site, frame.LST);
                 }
-
-            };
+                else if(iAZ >= 0 && iEL >= 0) {
+                    if(frame.horizontal == null) frame.horizontal = new HorizontalCoordinates();
+                    frame.horizontal.setLongitude(row.getDouble(iAZ) * Unit.deg);
+                    frame.horizontal.setLatitude(row.getDouble(iEL) * Unit.deg);
+                }
+            
+                frame.LOS = iLOS < 0 ? 0.0F : (float) (row.getDouble(iLOS) * Unit.deg);
+                frame.roll = iRoll < 0 ? 0.0F : (float) (row.getDouble(iRoll) * Unit.deg);
+            
+                frame.isComplete = true;
+            }
+            
+            // Sets RA (hours) and DEC (degrees), in place if the frame already has coordinates from an earlier parse...
+            private EquatorialCoordinates setEquatorial(EquatorialCoordinates coords, double RA, double DEC) {
+                if(coords == null) return new EquatorialCoordinates(RA * Unit.hourAngle, DEC * Unit.deg, epoch);
+                coords.setLongitude(RA * Unit.hourAngle);
+                coords.setLatitude(DEC * Unit.deg);
+                coords.epoch = epoch;
+                return coords;
+            }
         }
-    }   
+    }
+
 
 
     @Override
@@ -361,15 +511,30 @@ class HawcIntegration extends SofiaIntegration<HawcFrame> {
         super.removeDrifts(targetFrameResolution, robust);
     }
 
+    @Override
+    protected List<String> getFullRateOptions() {
+        List<String> keys = super.getFullRateOptions();
+        // Jumps are repaired in the timestream, so they must not be smeared by the downsampling...
+        keys.addAll(Arrays.asList("fixjumps", "fixjumps.r0", "fixjumps.r1", "fixjumps.t0", "fixjumps.t1"));
+        return keys;
+    }
+
     @Override
     public void validate() {  
-        if(hasOption("chopper.shift")) shiftChopper(option("chopper.shift").getInt());
+        // When downsampled while reading, the chopper shift and flux-jump handling were applied to the full-rate 
+        // frames already (see FullRatePrepass)...
+        if(!isDownsampled) if(hasOption("chopper.shift")) shiftChopper(option("chopper.shift").getInt());
   
         flagZeroedChannels();
-        checkJumps();
         
-        if(hasOption("jumpdata")) correctJumps();
+        if(!isDownsampled) {
+            checkJumps();
+            if(hasOption("jumpdata")) correctJumps();
+        }
         
+        // The gyro drift correction is a function of the frame time only, and downsampled frames carry the time and
+        // coordinates of their central full-rate frame. Thus, it is the same whether applied before or after 
+        // downsampling...
         if(hasOption("gyrocorrect")) getScan().gyroDrifts.correct(this);
         
         super.validate();
@@ -543,9 +708,9 @@ class HawcIntegration extends SofiaIntegration<HawcFrame> {
             for(int t=n; --t >= 0; ) set(t, null);
         }
         else {
-            final int nt = size();
-            for(int t=0; t<nt; t++) get(t).chopperPosition = get(t+n).chopperPosition;
-            for(int t=nt-n; t<nt; t++) set(t, null);
+            final int nt = size() + n;
+            for(int t=0; t<nt; t++) get(t).chopperPosition = get(t-n).chopperPosition;
+            for(int t=nt; t<size(); t++) set(t, null);
         }
     }
 
@@ -554,24 +719,116 @@ class HawcIntegration extends SofiaIntegration<HawcFrame> {
         info("Flux-jumps correcting...");    
         
         final HawcFrame first = getFirstFrame();
-        final int maxJump = HawcFrame.JUMP_RANGE >> 1;
-        
         
         new Fork<Void>() {
             @Override
             protected void process(HawcFrame frame) {
-                for(HawcPixel pixel : getInstrument()) if(pixel.jumpLevel != 0.0) {
-                    int nJumps = frame.jumpCounter[pixel.getIndex()] - first.jumpCounter[pixel.getIndex()];
-                    // Check for wraparound...
-                    if(nJumps > maxJump) nJumps -= HawcFrame.JUMP_RANGE;
-                    else if(nJumps < -maxJump) nJumps += HawcFrame.JUMP_RANGE;
-                    
-                    frame.data[pixel.getIndex()] -= pixel.jumpLevel * nJumps;
-                }
+                correctJumps(frame, first.jumpCounter);
             } 
         }.process();
         
     }
+    
+    private void correctJumps(final HawcFrame frame, final byte[] startCounter) {
+        final int maxJump = HawcFrame.JUMP_RANGE >> 1;
+        
+        for(HawcPixel pixel : getInstrument()) if(pixel.jumpLevel != 0.0) {
+            int nJumps = frame.jumpCounter[pixel.getIndex()] - startCounter[pixel.getIndex()];
+            // Check for wraparound...
+            if(nJumps > maxJump) nJumps -= HawcFrame.JUMP_RANGE;
+            else if(nJumps < -maxJump) nJumps += HawcFrame.JUMP_RANGE;
+            
+            frame.data[pixel.getIndex()] -= pixel.jumpLevel * nJumps;
+        }
+    }
+    
+    /**
+     * Applies the steps that must operate on the full-rate frames, i.e. the chopper shift, and the flux-jump 
+     * detection and correction, to frames as they are read in time order, before passing them on to the 
+     * decimator. The result is the same as what {@link #validate()} does to full-rate data, when these are not 
+     * downsampled while reading.
+     * 
+     */
+    private class FullRatePrepass {
+        private final int shift;
+        private final Vector2D[] chopperHistory;
+        private final HawcFrame[] pending;
+        private final boolean isCorrectingJumps;
+        private byte[] startCounter;
+        private boolean isFirst = true;
+        private int received = 0;
+        
+        FullRatePrepass() {
+            shift = hasOption("chopper.shift") ? option("chopper.shift").getInt() : 0;
+            chopperHistory = shift > 0 ? new Vector2D[shift] : null;
+            pending = shift < 0 ? new HawcFrame[-shift] : null;
+            isCorrectingJumps = hasOption("jumpdata");
+            
+            if(shift != 0) info("Shifting chopper signal by " + shift + " frames.");
+            info("Checking for flux jumps... ");
+            if(isCorrectingJumps) info("Flux-jumps correcting...");
+        }
+        
+        void add(HawcFrame frame) {
+            final int t = received++;
+            
+            if(shift > 0) {
+                // Each frame takes the chopper position of the frame 'shift' before it, or is discarded if none...
+                final int k = t % shift;
+                final Vector2D position = frame == null ? null : frame.chopperPosition;
+                if(frame != null) {
+                    if(chopperHistory[k] == null) frame = null;
+                    else frame.chopperPosition = chopperHistory[k];
+                }
+                chopperHistory[k] = position;
+            }
+            else if(shift < 0) {
+                // Each frame takes the chopper position of the frame 'shift' after it, so hold frames back until then...
+                final int k = t % pending.length;
+                HawcFrame earlier = pending[k];
+                pending[k] = frame;
+                
+                if(t < pending.length) return;
+                
+                if(earlier != null) {
+                    if(frame == null) earlier = null;
+                    else earlier.chopperPosition = frame.chopperPosition;
+                }
+                frame = earlier;
+            }
+            
+            process(frame);
+        }
+        
+        private void process(HawcFrame frame) {
+            if(frame != null) {
+                if(isFirst) {
+                    isFirst = false;
+                    if(frame.jumpCounter == null) warning("Scan has no jump counter data...");
+                    else startCounter = frame.jumpCounter.clone();
+                }
+                
+                if(startCounter != null) {
+                    for(int k=startCounter.length; --k >= 0; ) 
+                        if(frame.jumpCounter[k] != startCounter[k]) getInstrument().get(k).hasJumps = true;
+                    
+                    if(isCorrectingJumps) correctJumps(frame, startCounter);
+                }
+            }
+            
+            decimator.add(frame);
+        }
+        
+        void finish() {
+            // The last frames, without a chopper position to shift into them, are discarded... 
+            if(pending != null) for(int i=Math.min(received, pending.length); --i >= 0; ) decimator.add(null);
+            
+            if(startCounter == null) return;
+            
+            int jumpPixels = (int) getInstrument().parallelStream().filter(p -> p.hasJumps).count();
+            info("---> " + (jumpPixels > 0 ? "found jump(s) in " + jumpPixels + " pixels." : "All good!"));
+        }
+    }
 
   
   
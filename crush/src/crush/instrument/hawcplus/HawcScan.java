@@ -179,10 +179,15 @@ class HawcScan extends SofiaScan<HawcIntegration> {
     }
     
 
-    @Override
-    public void validate() {
+    // Configures the frame validation criteria, before frames are validated (e.g. when downsampling during reading)
+    void configureFrameValidation() {
         if(hasOption("chopper.tolerance")) transitTolerance = Math.abs(option("chopper.tolerance").getDouble());
         useBetweenScans = hasOption("betweenscans");
+    }
+
+    @Override
+    public void validate() {
+        configureFrameValidation();
 
         super.validate();
         
@@ -42,6 +42,7 @@ import nom.tam.fits.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 
 class Scuba2Scan extends GroundBasedScan<Scuba2Subscan> implements Weather {
@@ -126,7 +127,8 @@ class Scuba2Scan extends GroundBasedScan<Scuba2Subscan> implements Weather {
 		
 		clear();
 		
-		// Read all the files for a given subscan...
+		// Group the files by subscan...
+		ArrayList<Scuba2Subscan> subscans = new ArrayList<>();
 		Scuba2Subscan subscan = new Scuba2Subscan(this);
 		subscan.integrationNo = files.get(0).getSubscanNo();
 		
@@ -135,23 +137,39 @@ class Scuba2Scan extends GroundBasedScan<Scuba2Subscan> implements Weather {
 			int subscanNo = file.getSubscanNo();
 	
 			if(subscanNo != subscan.integrationNo) {
-				addSubscan(subscan);
+				subscans.add(subscan);
 				
 				subscan = new Scuba2Subscan(this);
 				subscan.integrationNo = subscanNo;
 			}
 			subscan.files.add(file);
 		}
-		addSubscan(subscan);
+		subscans.add(subscan);
+		
+		// Get the tracking coordinates for the scan once, before the subscans are read (maybe concurrently)... 
+		for(Scuba2Subscan s : subscans) {
+			Header header = s.files.get(0).getHDUs()[0].getHeader();
+			if(!Scuba2Subscan.isObserving(header)) continue;
+			parseCoordinateInfo(header);
+			if(trackingClass != null) break;
+		}
+		
+		// Read the subscans (concurrently, if allowed)...
+		ArrayList<Callable<Scuba2Subscan>> readers = new ArrayList<>(subscans.size());
+		for(final Scuba2Subscan s : subscans) readers.add(new Callable<Scuba2Subscan>() {
+			@Override
+			public Scuba2Subscan call() throws Exception { return readSubscan(s); }
+		});
+		readIntegrations(readers);
 		
 		Collections.sort(this);
 	}
 	
-	private void addSubscan(Scuba2Subscan subscan) throws FitsException {
-		if(subscan.files.isEmpty()) return;
+	private Scuba2Subscan readSubscan(Scuba2Subscan subscan) throws FitsException {
+		if(subscan.files.isEmpty()) return null;
 		try { 
 			subscan.read(); 
-			if(!subscan.isEmpty()) add(subscan);	
+			if(!subscan.isEmpty()) return subscan;	
 		}
 		catch(DarkSubscanException e) { subscan.info("Subscan " + subscan.getID() + " is a dark measurement. Skipping."); }
 		catch(FastFlatSubscanException e) { subscan.info("Subscan " + subscan.getID() + " is a flatfield measurement. Skipping."); }
@@ -159,6 +177,7 @@ class Scuba2Scan extends GroundBasedScan<Scuba2Subscan> implements Weather {
 		catch(UnsupportedIntegrationException e) {  subscan.info("Subscan " + subscan.getID() + " is not supported. Skipping."); }
 		catch(IllegalStateException e) { subscan.warning(e); }
 		catch(IOException e) { subscan.warning("FITS was not be closed."); }
+		return null;
 	}
 	
 	
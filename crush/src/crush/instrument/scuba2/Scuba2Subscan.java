@@ -127,7 +127,7 @@ class Scuba2Subscan extends GroundBasedIntegration<Scuba2Frame> {
 		// Read the subsequent subarray data (if any).
 		for(int i=0; i<files.size(); i++) {
 			readFile(files.get(i), i == 0);	
-			System.gc();
+			CRUSH.collectGarbage();
 		}
 	}
 	
@@ -236,6 +236,23 @@ class Scuba2Subscan extends GroundBasedIntegration<Scuba2Frame> {
 	@Override
 	public String getID() { return Integer.toString(integrationNo+1); }
 	
+	/**
+	 * Checks if a subscan, with the given primary header, contains regular observing data, i.e. it is not a dark, 
+	 * fast flatfield or noise measurement.
+	 * 
+	 * @param header	The primary FITS header of the subscan.
+	 * @return			<code>true</code> if the subscan contains observing data, otherwise <code>false</code>.
+	 */
+	static boolean isObserving(Header header) {
+		if(header.getDoubleValue("SHUTTER", 1.0) == 0.0) return false;
+		
+		String sequenceType = header.getStringValue("SEQ_TYPE");
+		if(sequenceType == null) return true;
+		
+		sequenceType = sequenceType.toLowerCase();
+		return !sequenceType.equals("fastflat") && !sequenceType.equals("noise");
+	}
+	
 	private void parsePrimaryHeader(Header header) throws HeaderCardException, UnsupportedIntegrationException {
 		integrationNo = header.getIntValue("NSUBSCAN") - 1;
 		
@@ -249,10 +266,6 @@ class Scuba2Subscan extends GroundBasedIntegration<Scuba2Frame> {
 		totalIntegrationTime = header.getDoubleValue("INT_TIME") * Unit.s;
 		rawFrames = header.getIntValue("NAXIS3"); 
 	
-		// Get the tracking coordinates for the scan, if not already set...
-		Scuba2Scan scubaScan = getScan();
-		if(scubaScan.trackingClass == null) scubaScan.parseCoordinateInfo(header);
-		
 		info("Subscan " + getID() + ": " + Util.f2.format(totalIntegrationTime / Unit.s) + " seconds with " + rawFrames + " frames --> @ "
 				+ Util.f2.format(rawFrames / totalIntegrationTime) + " Hz.");
 		
@@ -37,6 +37,7 @@ import nom.tam.fits.*;
 import java.io.*;
 import java.util.*;
 
+import crush.fits.ParallelGZIPInputStream;
 import crush.telescope.cso.CSOScan;
 
 import java.text.*;
@@ -117,6 +118,12 @@ class Sharc2Scan extends CSOScan<Sharc2Integration> {
 	}
 	
 	
+	@Override
+	public File getDataFile(String descriptor) {
+		try { return getFile(descriptor); }
+		catch(FileNotFoundException e) { return null; }
+	}
+	
 	private File getFile(String scanDescriptor) throws FileNotFoundException {
 		File scanFile;
 
@@ -159,7 +166,8 @@ class Sharc2Scan extends CSOScan<Sharc2Integration> {
 	private Fits getFits(String scanDescriptor) throws FileNotFoundException, FitsException {
 		File file = getFile(scanDescriptor);
 		info("Reading " + file.getPath() + "...");
-		return new Fits(getFile(scanDescriptor));
+		if(file.getName().endsWith(".gz")) return new Fits(new ParallelGZIPInputStream(file));
+		return new Fits(file);
 	}
 	
 	protected void checkPrematureFits(BasicHDU<?> main, BinaryTableHDU data) throws FitsException {
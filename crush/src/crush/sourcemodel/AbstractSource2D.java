@@ -880,6 +880,9 @@ public abstract class AbstractSource2D extends SourceModel {
     
     @Override
     public void write() throws Exception {    
+        // Make sure no pending intermediate image is written after it has been removed...
+        CRUSH.flushProducts();
+        
         // Remove the intermediate image file...
         File intermediate = new File(getOutputPath() + File.separator + "intermediate." + getID() + ".fits");
         if(intermediate.exists()) intermediate.delete();
@@ -887,7 +890,7 @@ public abstract class AbstractSource2D extends SourceModel {
         String idExt = "";
         if(getID() != null) if(getID().length() > 0) idExt = "." + getID();
 
-        String fileName = getOutputPath() + File.separator + getCoreName() + idExt + ".fits";
+        final String fileName = getOutputPath() + File.separator + getCoreName() + idExt + ".fits";
            
         if(isEmpty()) {
             // No file is created, any existing file with same name is erased.
@@ -901,7 +904,16 @@ public abstract class AbstractSource2D extends SourceModel {
         
         writeFits(fileName);
         
-        if(hasOption("write.png")) writePNG(getMap2D(), option("write.png"), fileName);
+        if(hasOption("write.png")) {
+            // Render the PNG from a snapshot of the map, s.t. it may be written in the background.
+            final Map2D snapshot = getMap2D().copy(true);
+            final Configurator pngOption = option("write.png");
+            
+            CRUSH.write(this, new ProductWriter.Product() {
+                @Override
+                public void write() throws Exception { writePNG(snapshot, pngOption, fileName); }
+            });
+        }
     }
     
 
@@ -29,7 +29,9 @@ import jnum.data.*;
 import jnum.math.Coordinate2D;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 
 public abstract class Photometry extends SourceModel {
     /**
@@ -41,12 +43,12 @@ public abstract class Photometry extends SourceModel {
     public double integrationTime;
     
     
-    private Hashtable<String, DataPoint> fluxes;
+    private ConcurrentHashMap<String, DataPoint> fluxes;
 
 
     public Photometry(Instrument<?> instrument) {
         super(instrument);
-        fluxes = new Hashtable<>(instrument.storeChannels);
+        fluxes = new ConcurrentHashMap<>(instrument.storeChannels);
     }
 
 
@@ -54,7 +56,7 @@ public abstract class Photometry extends SourceModel {
     public Photometry copy(boolean withContents) {
         Photometry copy = (Photometry) super.copy(withContents);
         if(fluxes != null) {
-            copy.fluxes = new Hashtable<>(getInstrument().size());
+            copy.fluxes = new ConcurrentHashMap<>(getInstrument().size());
             if(withContents) for(Map.Entry<String, DataPoint> entry : fluxes.entrySet()) copy.fluxes.put(entry.getKey(), entry.getValue().copy());
         }
 
@@ -62,7 +64,7 @@ public abstract class Photometry extends SourceModel {
     }
 
     
-    public Hashtable<String, DataPoint> getFluxes() {
+    public Map<String, DataPoint> getFluxes() {
         return fluxes;
     }
 
@@ -71,7 +73,7 @@ public abstract class Photometry extends SourceModel {
     }
     
     public boolean contains(String id) {
-        return fluxes.contains(id);
+        return fluxes.containsKey(id);
     }
     
     public final DataPoint getFlux(Channel channel) {
@@ -84,10 +86,23 @@ public abstract class Photometry extends SourceModel {
     
     
     
-    public synchronized void averageFlux(String id, DataPoint other, double scaling) {
-        DataPoint F = fluxes.get(id);
-        if(F != null) F.average(scaling * other.value(), other.weight() / (scaling * scaling));
-        else fluxes.put(id, new DataPoint(scaling * other.value(), scaling * other.rms()));
+    /**
+     * Averages a flux measurement into that of the given channel. The update is atomic for each channel, so fluxes 
+     * for different channels (or from different scans) can be aggregated concurrently, without a global lock. 
+     * 
+     * @param id        The channel ID.
+     * @param other     The flux measurement to average in.
+     * @param scaling   The scaling factor to apply to the measurement.
+     */
+    public void averageFlux(String id, final DataPoint other, final double scaling) {
+        fluxes.compute(id, new BiFunction<String, DataPoint, DataPoint>() {
+            @Override
+            public DataPoint apply(String key, DataPoint F) {
+                if(F == null) return new DataPoint(scaling * other.value(), scaling * other.rms());
+                F.average(scaling * other.value(), other.weight() / (scaling * scaling));
+                return F;
+            }
+        });
     }
     
     
@@ -31,6 +31,7 @@ import jnum.astro.Weather;
 import jnum.data.WeightedPoint;
 import jnum.math.Range;
 import jnum.math.SphericalCoordinates;
+import jnum.parallel.ParallelTask;
 
 import java.awt.Color;
 import java.io.*;
@@ -117,20 +118,50 @@ public class SkyDip extends SourceModel {
             C = (CorrelatedSignal) integration.getSignal(mode);
         }
 
-        for(final Frame frame : integration) if(frame != null) {
-            if(frame.isFlagged(Frame.SOURCE_FLAGS)) continue;
+        final CorrelatedSignal signal = C;
 
-            final HorizontalFrame exposure = (HorizontalFrame) frame;
+        // Bin into per-thread partials, then merge these into the skydip data...
+        CRUSH.Fork<WeightedPoint[]> binning = integration.new Fork<WeightedPoint[]>() {
+            private WeightedPoint[] local;
 
-            int bin = getBin(exposure.horizontal.EL());
-            if(bin < 0 || bin >= data.length) continue;
+            @Override
+            protected void init() {
+                super.init();
+                local = WeightedPoint.createArray(data.length);
+            }
 
-            final WeightedPoint point = data[bin];
-            double w = exposure.relativeWeight * C.weightAt(frame);
-            point.add(w * C.valueAt(frame));
-            point.addWeight(w);
-        }
+            @Override
+            protected void process(Frame frame) {
+                if(frame.isFlagged(Frame.SOURCE_FLAGS)) return;
+
+                final int bin = getBin(((HorizontalFrame) frame).horizontal.EL());
+                if(bin < 0 || bin >= local.length) return;
 
+                final WeightedPoint point = local[bin];
+                final double w = frame.relativeWeight * signal.weightAt(frame);
+                point.add(w * signal.valueAt(frame));
+                point.addWeight(w);
+            }
+
+            @Override
+            public WeightedPoint[] getLocalResult() { return local; }
+
+            @Override
+            public WeightedPoint[] getResult() {
+                for(ParallelTask<WeightedPoint[]> task : getWorkers()) {
+                    final WeightedPoint[] partial = task.getLocalResult();
+                    for(int bin=data.length; --bin >= 0; ) {
+                        final WeightedPoint point = data[bin];
+                        point.add(partial[bin].value());
+                        point.addWeight(partial[bin].weight());
+                    }
+                }
+                return data;
+            }
+        };
+
+        binning.process();
+        binning.getResult();
     }
 
     @Override
@@ -167,11 +198,7 @@ public class SkyDip extends SourceModel {
 
     @Override
     public void write() throws Exception {
-        model = new SkyDipModel();
-
-        model.kelvin.setValue(getInstrument().kelvin());	
-        model.dataUnit = getInstrument().getDataUnit().name();
-
+        model = createModel();
         fit(model);
 
         if(model.hasConverged) {
@@ -335,11 +362,42 @@ public class SkyDip extends SourceModel {
         CRUSH.notify(this, "Written " + fileName);
     }
 
+    public SkyDipModel createModel() {
+        SkyDipModel model = new SkyDipModel();
+        model.kelvin.setValue(getInstrument().kelvin());	
+        model.dataUnit = getInstrument().getDataUnit().name();
+        return model;
+    }
+
     public void fit(SkyDipModel model) {
         model.setOptions(option("skydip"));
         model.fit(this);
     }
 
+    /**
+     * Fits models to a batch of skydips (e.g. all skydips of a tau calibration campaign) concurrently. The models 
+     * are independent, so each skydip is fitted on its own, in parallel with the others.
+     * 
+     * @param skydips   The skydips to fit.
+     * @return          The fitted models, in the same order as the skydips.
+     */
+    public static SkyDipModel[] fit(final List<? extends SkyDip> skydips) {
+        final SkyDipModel[] models = new SkyDipModel[skydips.size()];
+
+        new CRUSH.Fork<Void>(skydips.size(), CRUSH.maxThreads) {
+            @Override
+            protected void processIndex(int index) {
+                final SkyDip skydip = skydips.get(index);
+                final SkyDipModel model = skydip.createModel();
+                skydip.fit(model);
+                skydip.model = model;
+                models[index] = model;
+            }
+        }.process();
+
+        return models;
+    }
+
     @Override
     public String getLoggingID() { return "skydip"; }
 
@@ -52,7 +52,8 @@ public class SkyDipModel {
 	Parameter Tsky = new Parameter("Tsky", 273.0 * Unit.K, 1.0 * Unit.K); // 0 C
 	Parameter offset = new Parameter("offset");
 	Parameter kelvin = new Parameter("kelvin");
-	Parameter tau = new Parameter("tau", 1.0, new Range(0.0, 10.0));
+	Range tauRange = new Range(0.0, 10.0);
+	Parameter tau = new Parameter("tau", 1.0, tauRange);
 	
 	double frequency;
 
@@ -68,9 +69,16 @@ public class SkyDipModel {
 	int attempts = 3;
 	
 	Minimizer minimizer;
+	double minimum = Double.NaN;
 	Vector<Parameter> parameters = new Vector<>();
 	
 	
+	private static final int maxIterations = 100;
+	private static final double maxLambda = 1e10;
+	private static final double tolerance = 1e-10;
+	private static final double pivotTolerance = 1e-12;
+	
+	
 	public void setOptions(Configurator options) {
 		this.options = options;	
 		
@@ -145,6 +153,192 @@ public class SkyDipModel {
 		for(int p=0; p<parameters.size(); p++) parameters.get(p).setValue(tryparm[p]);
 	}
 	
+	/**
+	 * Calculates the partial derivatives of the model value at the given elevation with respect to each of the
+	 * fitted parameters.
+	 * 
+	 * @param EL	The elevation angle.
+	 * @param J		The array to fill with the derivatives, in the order of the fitted parameters.
+	 */
+	protected void getJacobian(double EL, double[] J) {
+		final double airmass = 1.0 / Math.sin(EL);
+		final double eps = -Math.expm1(-tau.value() * airmass);
+		
+		for(int p=parameters.size(); --p >= 0; ) {
+			final Parameter parm = parameters.get(p);
+			
+			if(parm == offset) J[p] = 1.0;
+			else if(parm == kelvin) J[p] = eps * Tsky.value();
+			else if(parm == Tsky) J[p] = eps * kelvin.value();
+			else if(parm == tau) J[p] = (1.0 - eps) * airmass * Tsky.value() * kelvin.value();
+			else J[p] = 0.0;
+		}
+	}
+	
+	// Accumulates the curvature matrix (alpha) and the gradient vector (beta) of chi2 at the current parameters. 
+	private void getNormalEquations(SkyDip skydip, int from, int to, double[][] alpha, double[] beta, double[] J) {
+		final int n = parameters.size();
+		
+		for(int p=n; --p >= 0; ) {
+			Arrays.fill(alpha[p], 0.0);
+			beta[p] = 0.0;
+		}
+		
+		for(int i=from; i<to; i++) if(skydip.data[i].weight() > 0.0) {
+			final double EL = skydip.getEL(i);
+			final double dev = skydip.data[i].value() - valueAt(EL);
+			final double w = uniformWeights ? 1.0 : skydip.data[i].weight();
+			
+			getJacobian(EL, J);
+			
+			for(int p=n; --p >= 0; ) {
+				final double wJ = w * J[p];
+				beta[p] += wJ * dev;
+				for(int q=p+1; --q >= 0; ) alpha[p][q] += wJ * J[q];
+			}
+		}
+		
+		for(int p=n; --p >= 0; ) for(int q=p; --q >= 0; ) alpha[q][p] = alpha[p][q];
+	}
+	
+	/**
+	 * Fits the model using the Levenberg-Marquardt method with the analytic derivatives of the model. On success,
+	 * the parameters are left at their best-fit values, with weights from the inverse of the curvature matrix. 
+	 * On failure, the parameters are left at their last (best) values.
+	 * 
+	 * @param skydip	The skydip data.
+	 * @param from		The first elevation bin to fit (inclusive).
+	 * @param to		The last elevation bin to fit (exclusive).
+	 * @return			<code>true</code> if the fit has converged, otherwise <code>false</code>.
+	 */
+	protected boolean fitLevenbergMarquardt(SkyDip skydip, int from, int to) {
+		final int n = parameters.size();
+		if(n == 0) return false;
+		
+		// The model depends on Tsky and kelvin only via their product, so the two cannot be fitted together...
+		if(parameters.contains(Tsky) && parameters.contains(kelvin)) return false;
+		
+		final int tauIndex = parameters.indexOf(tau);
+		
+		final double[] parms = getParms();
+		final double[] trial = new double[n];
+		final double[] delta = new double[n];
+		final double[] J = new double[n];
+		final double[] beta = new double[n];
+		final double[][] alpha = new double[n][n];
+		final double[][] A = new double[n][n];
+		
+		double chi2 = getDeviationFrom(skydip, from, to);
+		double lambda = 1e-3;
+		
+		for(int k=0; k<maxIterations; k++) {
+			getNormalEquations(skydip, from, to, alpha, beta, J);
+			
+			while(true) {
+				for(int p=n; --p >= 0; ) {
+					System.arraycopy(alpha[p], 0, A[p], 0, n);
+					A[p][p] *= 1.0 + lambda;
+				}
+				
+				boolean isStationary = true;
+				
+				if(solve(A, beta, delta)) {
+					for(int p=n; --p >= 0; ) trial[p] = parms[p] + delta[p];
+					if(tauIndex >= 0) trial[tauIndex] = Math.min(tauRange.max(), Math.max(tauRange.min(), trial[tauIndex]));
+					
+					for(int p=n; --p >= 0; ) if(Math.abs(trial[p] - parms[p]) > tolerance * (Math.abs(parms[p]) + tolerance)) 
+						isStationary = false;
+					
+					setParms(trial);
+					final double trialChi2 = getDeviationFrom(skydip, from, to);
+					
+					if(trialChi2 <= chi2) {
+						final boolean isConverged = isStationary || chi2 - trialChi2 <= tolerance * chi2;
+						
+						System.arraycopy(trial, 0, parms, 0, n);
+						chi2 = trialChi2;
+						lambda *= 0.1;
+						
+						if(isConverged) return setLevenbergMarquardtResult(skydip, from, to, chi2);
+						break;
+					}
+					
+					setParms(parms);
+				}
+				else isStationary = false;
+				
+				// No better solution within a step too small to matter: we are at the minimum.
+				if(isStationary) return setLevenbergMarquardtResult(skydip, from, to, chi2);
+				
+				lambda *= 10.0;
+				if(lambda > maxLambda) return false;
+			}
+		}
+		
+		return false;
+	}
+	
+	private boolean setLevenbergMarquardtResult(SkyDip skydip, int from, int to, double chi2) {
+		final int n = parameters.size();
+		final double[] beta = new double[n];
+		final double[][] alpha = new double[n][n];
+		final double[][] A = new double[n][n];
+		final double[] unit = new double[n];
+		final double[] column = new double[n];
+		
+		getNormalEquations(skydip, from, to, alpha, beta, new double[n]);
+		
+		// The parameter variances are the diagonal elements of the inverse of the curvature matrix...
+		for(int p=n; --p >= 0; ) {
+			for(int q=n; --q >= 0; ) System.arraycopy(alpha[q], 0, A[q], 0, n);
+			Arrays.fill(unit, 0.0);
+			unit[p] = 1.0;
+			
+			if(!solve(A, unit, column)) return false;
+			parameters.get(p).setWeight(column[p] > 0.0 ? 1.0 / column[p] : 0.0);
+		}
+		
+		minimum = chi2;
+		return true;
+	}
+	
+	// Solves A x = b by Gaussian elimination with partial pivoting. A is destroyed in the process. The system is 
+	// deemed singular if a pivot is negligible relative to the original diagonal element in its column, i.e. if
+	// that column is (numerically) a combination of the preceding ones.
+	private static boolean solve(double[][] A, double[] b, double[] x) {
+		final int n = b.length;
+		System.arraycopy(b, 0, x, 0, n);
+		
+		final double[] diag = new double[n];
+		for(int i=n; --i >= 0; ) diag[i] = Math.abs(A[i][i]);
+		
+		for(int i=0; i<n; i++) {
+			int pivot = i;
+			for(int j=i+1; j<n; j++) if(Math.abs(A[j][i]) > Math.abs(A[pivot][i])) pivot = j;
+			
+			if(!(Math.abs(A[pivot][i]) > pivotTolerance * diag[i])) return false;
+			
+			if(pivot != i) {
+				final double[] row = A[i]; A[i] = A[pivot]; A[pivot] = row;
+				final double temp = x[i]; x[i] = x[pivot]; x[pivot] = temp;
+			}
+			
+			for(int j=i+1; j<n; j++) {
+				final double f = A[j][i] / A[i][i];
+				for(int k=i; k<n; k++) A[j][k] -= f * A[i][k];
+				x[j] -= f * x[i];
+			}
+		}
+		
+		for(int i=n; --i >= 0; ) {
+			for(int k=i+1; k<n; k++) x[i] -= A[i][k] * x[k];
+			x[i] /= A[i][i];
+			if(Double.isNaN(x[i]) || Double.isInfinite(x[i])) return false;
+		}
+		
+		return true;
+	}
+	
 	public double getDeviationFrom(SkyDip skydip, int from, int to) {
 		double sumdev = 0.0;
 		for(int i=from; i<to; i++) if(skydip.data[i].weight() > 0.0) {
@@ -185,20 +379,36 @@ public class SkyDipModel {
         };
         
         initParms(skydip);
-        minimizer = new DownhillSimplex(chi2, parameters);
         hasConverged = false;
         
-        try {
-            minimizer.minimize(attempts); 
-            hasConverged = true;
+        // Try the (fast) Levenberg-Marquardt fit first, unless the simplex method is requested explicitly...
+        if(!options.hasOption("simplex")) {
+            final double[] initial = getParms();
+            hasConverged = fitLevenbergMarquardt(skydip, from, to);
+            
+            if(!hasConverged) {
+                CRUSH.debug(this, "Levenberg-Marquardt fit failed. Trying downhill simplex...");
+                setParms(initial);
+            }
+        }
+        
+        if(!hasConverged) {
+            minimizer = new DownhillSimplex(chi2, parameters);
+
+            try {
+                minimizer.minimize(attempts); 
+                hasConverged = true;
+            }
+            catch(ConvergenceException e) { skydip.warning("Skydip fit did not converge!"); }
+            
+            minimum = minimizer.getMinimum();
         }
-        catch(ConvergenceException e) { skydip.warning("Skydip fit did not converge!"); }
         
 		final int dof = usePoints - parameters.size();
 		
 		// Renormalize to chi2 = 1;
 		if(dof > 0.0) {
-			double rChi2 = minimizer.getMinimum() / dof;	
+			double rChi2 = minimum / dof;	
 			
 			for(int i=0; i<parameters.size(); i++) {
 				final Parameter p = parameters.get(i);
@@ -219,7 +429,7 @@ public class SkyDipModel {
 		if(parameters.contains(Tsky)) text.append("  " + Tsky.toString(Util.f1) + " K" + "\n");
 		if(parameters.contains(kelvin)) text.append("  " + kelvin.toString(Util.s3) + " " + dataUnit + "\n");
 
-		text.append("\t\t\t\t[" + Util.s3.format(Math.sqrt(minimizer.getMinimum()) / kelvin.value()) + " K rms]\n");
+		text.append("\t\t\t\t[" + Util.s3.format(Math.sqrt(minimum) / kelvin.value()) + " K rms]\n");
 		
 		return new String(text);
 	}
@@ -29,7 +29,9 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.concurrent.ExecutorService;
 
+import crush.CRUSH;
 import crush.Instrument;
+import crush.ProductWriter;
 import crush.Scan;
 import jnum.Configurator;
 import jnum.LockedException;
@@ -288,7 +290,23 @@ public abstract class SourceData2D<IndexType extends Index<IndexType>, DataType
 
 
         if(hasSourceOption("intermediates")) {
-            try { writeFits(getOutputPath() + File.separator + "intermediate.fits"); }
+            // Take a snapshot of the map now, and write it (in the background, if possible) while the reduction goes on.
+            final String fileName = getOutputPath() + File.separator + "intermediate.fits";
+            try { 
+                final Fits fits = createFits(fileName);
+                final boolean isGZIP = hasOption("gzip");
+                
+                CRUSH.write(this, new ProductWriter.Product() {
+                    @Override
+                    public void write() throws Exception {
+                        try { 
+                            if(isGZIP) FitsToolkit.writeGZIP(fits, fileName);
+                            else FitsToolkit.write(fits, fileName);
+                        }
+                        finally { fits.close(); }
+                    }
+                });
+            }
             catch(Exception e) { error(e); }
         }
 
@@ -311,19 +329,34 @@ public abstract class SourceData2D<IndexType extends Index<IndexType>, DataType
         getData().clearHistory();
     }
    
+    /**
+     * Creates a FITS object containing a copy of the current source data, with the appropriate headers, and 
+     * with the scan HDUs added.
+     * 
+     * @param fileName          The name of the file to which the FITS will be written.
+     * @return                  A new FITS object with its own copy of the source data.
+     * @throws FitsException    If there was an error creating the FITS data or headers.
+     * @throws IOException      
+     */
+    public Fits createFits(String fileName) throws FitsException, IOException {
+        Fits fits = getData().createFits(Float.class);
+        
+        int nHDU = fits.getNumberOfHDUs();
+        for(int i=0; i<nHDU; i++) {
+            Header header = fits.getHDU(i).getHeader();
+            editHeader(header);
+            File f = new File(fileName);
+            header.addValue("FILENAME", f.getName(), "Name at creation");       
+        }   
+
+        addScanHDUsTo(fits);
+        
+        return fits;
+    }
+   
     @Override
     public void writeFits(String fileName) throws FitsException, IOException {        
-        try(Fits fits = getData().createFits(Float.class)) {
-            int nHDU = fits.getNumberOfHDUs();
-            for(int i=0; i<nHDU; i++) {
-                Header header = fits.getHDU(i).getHeader();
-                editHeader(header);
-                File f = new File(fileName);
-                header.addValue("FILENAME", f.getName(), "Name at creation");       
-            }   
-
-            addScanHDUsTo(fits);
-
+        try(Fits fits = createFits(fileName)) {
             if(hasOption("gzip")) FitsToolkit.writeGZIP(fits, fileName);
             else FitsToolkit.write(fits, fileName);
 
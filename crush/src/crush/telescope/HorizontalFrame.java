@@ -54,6 +54,7 @@ public abstract class HorizontalFrame extends TelescopeFrame {
 		
 		if(horizontal != null) copy.horizontal = horizontal.copy();
 		if(horizontalOffset != null) copy.horizontalOffset = horizontalOffset.copy();
+		if(PA != null) copy.PA = new Angle(PA.value());
 		
 		return copy;
 	}
@@ -150,7 +151,8 @@ public abstract class HorizontalFrame extends TelescopeFrame {
 	}
 	
 	public void setParallacticAngle(double angle) {
-	    PA = new Angle(angle);
+	    if(PA == null) PA = new Angle(angle);
+	    else PA.setRadians(angle);
 	}
 	
 	public Angle getParallacticAngle() {
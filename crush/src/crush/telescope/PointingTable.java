@@ -33,16 +33,13 @@ import jnum.Unit;
 import jnum.Util;
 import jnum.astro.AstroTime;
 import jnum.astro.HorizontalCoordinates;
-import jnum.data.LocalAverage;
-import jnum.data.Locality;
-import jnum.data.LocalizedData;
 import jnum.data.WeightedPoint;
 import jnum.math.Range;
 import jnum.math.Vector2D;
 import jnum.util.LogFile;
 
 
-public class PointingTable extends LocalAverage<PointingTable.Entry> {
+public class PointingTable extends ArrayList<PointingTable.Entry> {
 	/**
 	 * 
 	 */
@@ -56,9 +53,11 @@ public class PointingTable extends LocalAverage<PointingTable.Entry> {
 	public double searchRadius = 15.0 * Unit.deg;
 	public double timeWindow = 1.0 * Unit.hour;
 	
+	private double[] MJD;		// The sorted times of the entries, for binary search.
+	
 	private static Hashtable<String, PointingTable> tables = new Hashtable<>();
 	
-	public static PointingTable get(String fileName) throws IOException {
+	public static synchronized PointingTable get(String fileName) throws IOException {
 		PointingTable table = tables.get(fileName);
 		if(table == null) {
 			table = new PointingTable(fileName);
@@ -115,17 +114,29 @@ public class PointingTable extends LocalAverage<PointingTable.Entry> {
 		
 		this.fileName = fileName;
 		
-		Collections.sort(this);
+		index();
 		
 		CRUSH.info(this, "[Loading pointing table.] -- " + size() + " valid records found.");
 		if(CRUSH.debug) CRUSH.detail(this, " >> " + fileName + " >> ");
 		
 	}
 	
+	private void index() {
+		Collections.sort(this, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b) { return Double.compare(a.location.MJD, b.location.MJD); }
+		});
+		
+		MJD = new double[size()];
+		for(int i=MJD.length; --i >= 0; ) MJD[i] = get(i).location.MJD;
+	}
 	
-	public Vector2D getIncrement(double MJD, double Tamb, HorizontalCoordinates horizontal, IRAMPointingModel pointingModel) {		
+	public Vector2D getIncrement(double MJD, double Tamb, HorizontalCoordinates horizontal, IRAMPointingModel pointingModel) {	
 		Entry mean = getLocalAverage(new Location(MJD, horizontal), new Model(pointingModel, Tamb));
 		
+		if(mean.dx.weight() == 0.0 || mean.dy.weight() == 0.0) 
+			throw new IllegalStateException("No pointing data near MJD " + Util.f3.format(MJD) + " in " + fileName);
+		
 		CRUSH.info(this, "Incremental Pointing is " + 
 				Util.f1.format(mean.dx.value() / Unit.arcsec) + "," +
 				Util.f1.format(mean.dy.value() / Unit.arcsec) + 
@@ -136,6 +147,34 @@ public class PointingTable extends LocalAverage<PointingTable.Entry> {
 		
 	}
 	
+	/**
+	 * Returns the local (Gaussian-weighted) average of the model-corrected pointing offsets around the specified time 
+	 * and position. Only the entries within {@link TimeSeriesIndex#SPAN} time windows are considered (or else the 
+	 * {@link TimeSeriesIndex#MIN_MEASUREMENTS} nearest ones in time), which are located by binary search.
+	 * 
+	 * @param location	The time and horizontal position, around which to average.
+	 * @param model		The pointing model, whose corrections are removed from the tabulated offsets, or null.
+	 * @return			The local average pointing offsets.
+	 * @throws ArrayIndexOutOfBoundsException	If the time is outside the range of the table.
+	 */
+	Entry getLocalAverage(Location location, Model model) throws ArrayIndexOutOfBoundsException {
+		TimeSeriesIndex.checkRange(MJD, MJD.length, location.MJD);
+		
+		final int[] range = TimeSeriesIndex.getRange(MJD, MJD.length, location.MJD, TimeSeriesIndex.SPAN * timeWindow / Unit.day);
+		final int from = range[0], to = range[1];
+		
+		Entry mean = new Entry();
+		mean.location = location;
+		
+		for(int i=from; i<to; i++) {
+			Entry entry = get(i);
+			double d = location.distanceTo(entry.location);
+			mean.average(entry, model, Math.exp(-0.5 * d * d));
+		}
+		
+		return mean;
+	}
+	
 	class Model {
 		IRAMPointingModel pointingModel;
 		double ambientT;
@@ -150,7 +189,7 @@ public class PointingTable extends LocalAverage<PointingTable.Entry> {
 		}
 	}
 
-	class Location extends Locality {
+	class Location {
 		double MJD;
 		HorizontalCoordinates horizontal;
 		
@@ -159,34 +198,19 @@ public class PointingTable extends LocalAverage<PointingTable.Entry> {
 			this.horizontal = horizontal;
 		}
 		
-		@Override
-		public double distanceTo(Locality other) {
-			double devT = (((Location) other).MJD - MJD) * Unit.day / timeWindow;
-			double devX = ((Location) other).horizontal.distanceTo(horizontal) / searchRadius;
+		public double distanceTo(Location other) {
+			double devT = (other.MJD - MJD) * Unit.day / timeWindow;
+			double devX = other.horizontal.distanceTo(horizontal) / searchRadius;
 			
 			return ExtraMath.hypot(devT, devX);
 		}
-
-		@Override
-		public int compareTo(Locality o) {
-			return Double.compare(MJD, ((Location) o).MJD);
-		}
 		
 		@Override
 		public String toString() { return Double.toString(MJD) + " : " + horizontal; }
-
-		@Override
-		public double sortingDistanceTo(Locality other) {
-			return Math.abs((((Location) other).MJD - MJD) * Unit.day / timeWindow);
-		}
 	}
 
 	
-	class Entry extends LocalizedData {
-		/**
-		 * 
-		 */
-		private static final long serialVersionUID = 6919207692208960243L;
+	class Entry {
 		Location location;
 		String id;
 		
@@ -194,35 +218,15 @@ public class PointingTable extends LocalAverage<PointingTable.Entry> {
 		WeightedPoint dy = new WeightedPoint();
 		double significance;
 		double FWHM;
+		int measurements = 0;
 		
-		
-		@Override
-		public Locality getLocality() {
-			return location;
-		}
-		@Override
-		public void setLocality(Locality loc) {
-			location = (Location) loc;
-		}
-		@Override
-		protected void averageWidth(LocalizedData other, Object env, double relativeWeight) {
-			Entry entry = (Entry) other;
-			
-			Vector2D corr = env == null ? new Vector2D() : ((Model) env).getCorrection(entry);
+		protected void average(Entry entry, Model model, double relativeWeight) {
+			Vector2D corr = model == null ? new Vector2D() : model.getCorrection(entry);
 			
 			dx.average(entry.dx.value() - corr.x(), relativeWeight * entry.dx.weight());
 			dy.average(entry.dy.value() - corr.y(), relativeWeight * entry.dy.weight());
+			measurements++;
 		}
-	
-		
 	}
-
-
-	@Override
-	public Entry getLocalizedDataInstance() {
-		return new Entry();
-	}	
 	
 }
-
-
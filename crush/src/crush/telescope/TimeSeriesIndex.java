@@ -0,0 +1,301 @@
+
+/*******************************************************************************
+ * Copyright (c) 2020 Attila Kovacs <attila[AT]sigmyne.com>.
+ * All rights reserved. 
+ * 
+ * This file is part of crush.
+ * 
+ *     crush is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ * 
+ *     crush is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ * 
+ *     You should have received a copy of the GNU General Public License
+ *     along with crush.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *     Attila Kovacs <attila[AT]sigmyne.com> - initial API and implementation
+ ******************************************************************************/
+package crush.telescope;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import jnum.Unit;
+import jnum.data.DataPoint;
+
+/**
+ * 
+ * A time-sorted index of weighted scalar measurements (such as skydip tau values), for fast lookups of local 
+ * (Gaussian-weighted) averages around a given time. Measurements are added while the table is read, after which the 
+ * index is built once, into sorted primitive arrays. Lookups use binary search to find the measurements within the 
+ * averaging span, and therefore take O(log <i>n</i>) time plus the number of measurements averaged, regardless of 
+ * how many years of data the table spans. 
+ * <p>
+ * 
+ * Once indexed, the table is immutable, and may be shared by any number of scans (and threads) for lookups with 
+ * different averaging windows.
+ * 
+ * @author Attila Kovacs <attila@sigmyne.com>
+ *
+ */
+public class TimeSeriesIndex implements Serializable {
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 7395180932118373245L;
+
+	private double[] MJD = new double[16];
+	private double[] value = new double[16];
+	private double[] weight = new double[16];
+	private int size = 0;
+	private boolean isIndexed = false;
+	
+	/**
+	 * Adds a measurement to the table. Measurements may be added in any order, but must all be added before the 
+	 * table is indexed.
+	 * 
+	 * @param MJD		The time of the measurement (MJD).
+	 * @param value		The measured value.
+	 * @param weight	The noise weight (1/variance) of the measurement.
+	 */
+	public void add(double MJD, double value, double weight) {
+		if(isIndexed) throw new IllegalStateException("Cannot add to an indexed table.");
+		
+		if(size == this.MJD.length) {
+			this.MJD = Arrays.copyOf(this.MJD, size << 1);
+			this.value = Arrays.copyOf(this.value, size << 1);
+			this.weight = Arrays.copyOf(this.weight, size << 1);
+		}
+		
+		this.MJD[size] = MJD;
+		this.value[size] = value;
+		this.weight[size] = weight;
+		size++;
+	}
+	
+	/**
+	 * Sorts the measurements by time, and trims the storage. Must be called once, after all measurements were added,
+	 * and before any lookups.
+	 */
+	public void index() {
+		if(isIndexed) return;
+		
+		Integer[] order = new Integer[size];
+		for(int i=size; --i >= 0; ) order[i] = i;
+		
+		// A stable sort, s.t. the order of simultaneous measurements is retained...
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) { return Double.compare(MJD[a], MJD[b]); }
+		});
+		
+		final double[] sortedMJD = new double[size];
+		final double[] sortedValue = new double[size];
+		final double[] sortedWeight = new double[size];
+		
+		for(int i=size; --i >= 0; ) {
+			final int k = order[i];
+			sortedMJD[i] = MJD[k];
+			sortedValue[i] = value[k];
+			sortedWeight[i] = weight[k];
+		}
+		
+		MJD = sortedMJD;
+		value = sortedValue;
+		weight = sortedWeight;
+		isIndexed = true;
+	}
+	
+	public int size() { return size; }
+	
+	public boolean isEmpty() { return size == 0; }
+	
+	public double getMJD(int i) { return MJD[i]; }
+	
+	public double getValue(int i) { return value[i]; }
+	
+	public double getWeight(int i) { return weight[i]; }
+	
+	/**
+	 * Checks that a time is within the range of the table. 
+	 * 
+	 * @param MJD	The time (MJD).
+	 * @throws ArrayIndexOutOfBoundsException	If the time is before the first, or after the last, measurement in 
+	 * 											the table.
+	 */
+	public void checkRange(double MJD) throws ArrayIndexOutOfBoundsException {
+		checkRange(this.MJD, size, MJD);
+	}
+	
+	/**
+	 * Returns the Gaussian-weighted local average of the measurements around the specified time, including the 
+	 * measurements within {@link #SPAN} windows of it. If there are fewer than {@link #MIN_MEASUREMENTS} in that span, 
+	 * the search is widened to the nearest measurements, until there are enough of them (see 
+	 * {@link #getRange(double[], int, double, double)}). 
+	 * 
+	 * @param MJD		The time (MJD) at which to get the local average.
+	 * @param window	The (1-sigma) time window of the Gaussian weighting, in time units (e.g. <code>Unit.hour</code>).
+	 * @return			The local average. It may have zero weight if all the nearest measurements are too many windows
+	 * 					away to contribute to the Gaussian-weighted average (or have zero weight themselves).
+	 * @throws ArrayIndexOutOfBoundsException	If the time is outside of the range of the table.
+	 */
+	public Average getAverage(double MJD, double window) throws ArrayIndexOutOfBoundsException {
+		return getCheckedAverage(MJD, window, Double.POSITIVE_INFINITY);
+	}
+	
+	/**
+	 * Like {@link #getAverage(double, double)}, but discarding the measurements that are inconsistent with the 
+	 * local average, i.e. which deviate from it by <code>maxDev</code> sigmas or more (in combined uncertainty), 
+	 * before re-averaging.
+	 * 
+	 * @param MJD		The time (MJD) at which to get the local average.
+	 * @param window	The (1-sigma) time window of the Gaussian weighting, in time units (e.g. <code>Unit.hour</code>).
+	 * @param maxDev	The significance of deviation, at and above which measurements are discarded.
+	 * @return			The local average of the consistent measurements.
+	 * @throws ArrayIndexOutOfBoundsException	If the time is outside of the range of the table.
+	 */
+	public Average getCheckedAverage(double MJD, double window, double maxDev) throws ArrayIndexOutOfBoundsException {
+		checkRange(MJD);
+		
+		final int[] range = getRange(this.MJD, size, MJD, SPAN * Math.abs(window) / Unit.day);
+		final int from = range[0], to = range[1];
+		
+		Average mean = average(MJD, window, from, to, null, maxDev);
+		if(Double.isInfinite(maxDev)) return mean;
+		
+		Average checked = average(MJD, window, from, to, mean, maxDev);
+		
+		// If no measurement is consistent with the mean (e.g. with a wild outlier), then keep the plain average.
+		return checked.measurements > 0 ? checked : mean;
+	}
+	
+	private Average average(double MJD, double window, int from, int to, Average reference, double maxDev) {
+		final Average mean = new Average();
+		final double iw = Unit.day / Math.abs(window);
+		
+		final double refValue = reference == null ? Double.NaN : reference.value();
+		final double refVar = reference == null ? 0.0 : 1.0 / reference.weight();
+		
+		for(int i=from; i<to; i++) {
+			if(reference != null) {
+				final double dev = Math.abs(value[i] - refValue) / Math.sqrt(1.0 / weight[i] + refVar);
+				if(!(dev < maxDev)) continue;
+			}
+			
+			final double d = (this.MJD[i] - MJD) * iw;
+			mean.average(value[i], Math.exp(-0.5 * d * d) * weight[i]);
+			mean.measurements++;
+		}
+		
+		return mean;
+	}
+	
+	/**
+	 * Returns the range of elements in a sorted array that are within the specified distance of a value. If the 
+	 * range contains fewer than {@link #MIN_MEASUREMENTS} elements, it is widened to include the nearest elements 
+	 * outside of it, until it contains that many (or all elements).
+	 * 
+	 * @param sorted	The array, sorted in ascending order.
+	 * @param n			The number of elements used in the array.
+	 * @param x			The value around which to look.
+	 * @param dx		The maximum distance from <code>x</code>, for elements to be included without widening.
+	 * @return			The <code>{ from, to }</code> index range (the latter exclusive).
+	 */
+	public static int[] getRange(double[] sorted, int n, double x, double dx) {
+		int from = fromIndex(sorted, n, x - dx);
+		int to = toIndex(sorted, n, x + dx);
+		
+		// Widen to the nearest elements until there are enough of them...
+		while(to - from < MIN_MEASUREMENTS && (from > 0 || to < n)) {
+			if(to >= n) from--;
+			else if(from > 0 && x - sorted[from - 1] <= sorted[to] - x) from--;
+			else to++;
+		}
+		
+		return new int[] { from, to };
+	}
+	
+	/**
+	 * Returns the index of the first element in a sorted array that is not less than the specified value.
+	 * 
+	 * @param sorted	The array, sorted in ascending order.
+	 * @param n			The number of elements used in the array.
+	 * @param x			The value to look up.
+	 * @return			The index of the first element &gt;= <code>x</code>, or <code>n</code> if there is no such 
+	 * 					element.
+	 */
+	public static int fromIndex(double[] sorted, int n, double x) {
+		int lo = 0, hi = n;
+		while(lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if(sorted[mid] < x) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+	
+	/**
+	 * Returns the index of the first element in a sorted array that is greater than the specified value.
+	 * 
+	 * @param sorted	The array, sorted in ascending order.
+	 * @param n			The number of elements used in the array.
+	 * @param x			The value to look up.
+	 * @return			The index of the first element &gt; <code>x</code>, or <code>n</code> if there is no such 
+	 * 					element.
+	 */
+	public static int toIndex(double[] sorted, int n, double x) {
+		int lo = 0, hi = n;
+		while(lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if(sorted[mid] <= x) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+	
+	/**
+	 * Checks that a value is within the range of a sorted array.
+	 * 
+	 * @param sorted	The array, sorted in ascending order.
+	 * @param n			The number of elements used in the array.
+	 * @param x			The value to check.
+	 * @throws ArrayIndexOutOfBoundsException	If the value precedes the first, or is beyond the last element. 
+	 */
+	public static void checkRange(double[] sorted, int n, double x) throws ArrayIndexOutOfBoundsException {
+		if(n == 0 || x < sorted[0]) throw new ArrayIndexOutOfBoundsException("Specified point precedes lookup range.");
+		if(x > sorted[n-1]) throw new ArrayIndexOutOfBoundsException("Specified point is beyond lookup range.");
+	}
+	
+	
+	/**
+	 * A local average of measurements, and the number of measurements that contributed to it.
+	 */
+	public static class Average extends DataPoint {
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = -2719546127391706241L;
+		
+		public int measurements = 0;
+	}
+	
+
+	/**
+	 * The averaging span, i.e. the maximum distance of measurements included in local averages, in units of the time 
+	 * window.
+	 */
+	public static final double SPAN = 3.0;
+	
+	/**
+	 * The minimum number of measurements to include in local averages, even if some of them are beyond {@link #SPAN}
+	 * windows.
+	 */
+	public static final int MIN_MEASUREMENTS = 3;
+}
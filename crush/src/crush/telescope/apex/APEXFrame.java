@@ -23,6 +23,7 @@
 
 package crush.telescope.apex;
 
+import crush.fits.TableRow;
 import crush.telescope.HorizontalFrame;
 
 
@@ -58,6 +59,11 @@ public class APEXFrame extends HorizontalFrame {
 		System.arraycopy(flatData, from, data, 0, channels);
 	}
 	
+	void parse(TableRow row, int col, int channels) {
+		data = new float[channels];
+		for(int c=channels; --c >= 0; ) data[c] = row.getFloat(col, c);
+	}
+	
 	void parse(float[] flatData) {
 		data = flatData;
 	}
@@ -26,6 +26,7 @@ package crush.telescope.apex;
 
 import crush.*;
 import crush.motion.Chopper;
+import crush.fits.ParallelGZIPInputStream;
 import crush.telescope.GroundBasedScan;
 import crush.telescope.TelescopeFrame;
 import jnum.NonConformingException;
@@ -46,7 +47,9 @@ import nom.tam.fits.*;
 import nom.tam.util.Cursor;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -229,24 +232,61 @@ public class APEXScan<SubscanType extends APEXSubscan<? extends APEXFrame>> exte
 		
 		int[] bands = instrument.activeBands;
 		
+		// Read the subscans (concurrently, if allowed)...
+		ArrayList<Callable<SubscanType>> readers = new ArrayList<>(subscans * bands.length);
+		
 		for(int i=0; i<subscans; i++) for(int j=0; j < bands.length; j++) {
-			try {
-				SubscanType subscan = getIntegrationInstance();
-
-				subscan.integrationNo = i;
-				subscan.getInstrument().band = bands[j];
-				
-				info("Integration " + subscan.getID() + ":");
-				
-				subscan.readDataPar(getFits(dir + (i+1) + File.separator + getFEBECombination() + "-DATAPAR" + ext));
-				subscan.readData(getFits(dir + (i+1) + File.separator + getFEBECombination() + "-ARRAYDATA-" + bands[j] + ext));
-				if(readMonitor()) subscan.readMonitor(getFits(dir + (i+1) + File.separator + "MONITOR" + ext));
-				
-				add(subscan);
-			}
-			catch(Exception e) { error(e); }
+			final SubscanType subscan = getIntegrationInstance();
+			subscan.integrationNo = i;
+			subscan.getInstrument().band = bands[j];
+			
+			final String path = dir;
+			final String fileExt = ext;
+			
+			readers.add(new Callable<SubscanType>() {
+				@Override
+				public SubscanType call() { return readSubscan(subscan, path, fileExt); }
+			});
+		}
+		
+		try { readIntegrations(readers); }
+		catch(Exception e) { error(e); }
+		
+		flagNonSidereal();
+	}
+	
+	/**
+	 * Sets the scan's non-sidereal flag once all subscans have been read, if any of them detected
+	 * non-sidereal tracking on its own. Subscans do not set the scan's flag themselves, since they
+	 * may be read concurrently.
+	 */
+	private void flagNonSidereal() {
+		for(SubscanType subscan : this) if(subscan.isNonSidereal) {
+			isNonSidereal = true;
+			return;
 		}
+	}
 	
+	private SubscanType readSubscan(SubscanType subscan, String dir, String ext) {
+		final int i = subscan.integrationNo;
+		final int band = subscan.getInstrument().band;
+		
+		try {
+			info("Integration " + subscan.getID() + ":");
+			
+			subscan.readDataPar(getFits(dir + (i+1) + File.separator + getFEBECombination() + "-DATAPAR" + ext));
+			
+			File dataFile = getFile(dir + (i+1) + File.separator + getFEBECombination() + "-ARRAYDATA-" + band + ext);
+			subscan.readData(getFits(dataFile), dataFile);
+			
+			if(readMonitor()) subscan.readMonitor(getFits(dir + (i+1) + File.separator + "MONITOR" + ext));
+			
+			return subscan;
+		}
+		catch(Exception e) { 
+			error(e); 
+			return null;
+		}
 	}
 	
 	public void readScan(String fileName, boolean readFully) throws IOException, FitsException {				
@@ -292,6 +332,8 @@ public class APEXScan<SubscanType extends APEXSubscan<? extends APEXFrame>> exte
 	            catch(Exception e) { error(e); }
 	        }
 
+	        flagNonSidereal();
+
 	        fits.close(); 
 	    }
 		catch(IOException e) {}
@@ -299,13 +341,22 @@ public class APEXScan<SubscanType extends APEXSubscan<? extends APEXFrame>> exte
 	}
 	
 	public Fits getFits(String fileName) throws IOException, FitsException {   
+		return getFits(getFile(fileName));
+	}
+	
+	public Fits getFits(File file) throws IOException, FitsException {   
+		if(file.getName().endsWith(".gz")) return new Fits(new ParallelGZIPInputStream(file));
+		return new Fits(file);
+	}
+	
+	public File getFile(String fileName) {
 		File file = new File(fileName);
 		if(!file.exists()) file = new File(fileName + ".gz");
 		if(!file.exists()) file = new File(fileName + ".xz");
 		if(!file.exists()) file = new File(fileName + ".Z");
 		if(!file.exists()) file = new File(fileName + ".bz2");
 		if(!file.exists()) file = new File(fileName + ".zip");
-		return new Fits(file);
+		return file;
 	}
 	
 	public final int readScanInfo(Fits fits) throws IOException, FitsException {
@@ -27,8 +27,12 @@ import crush.*;
 import nom.tam.fits.*;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
+import crush.fits.HDUBlockReader;
 import crush.fits.HDUReader;
+import crush.fits.TableRow;
 import crush.motion.Chopper;
 import crush.motion.ChopperPhases;
 import crush.motion.Chopping;
@@ -54,6 +58,9 @@ public class APEXSubscan<FrameType extends APEXFrame> extends GroundBasedIntegra
 		
 	double pwv = Double.NaN;
 	
+	// Set by this subscan's own DATAPAR reader, since subscans may be read concurrently...
+	boolean isNonSidereal = false;
+	
 	protected APEXSubscan(APEXScan<? extends APEXSubscan<? extends FrameType>> parent) {
 		super(parent);
 	}
@@ -80,8 +87,8 @@ public class APEXSubscan<FrameType extends APEXFrame> extends GroundBasedIntegra
 			String tauName = option("tau").getPath();
 			try { 
 				APEXTauTable tauTable = APEXTauTable.get(tauName);
-				if(hasOption("tau.window")) tauTable.timeWindow = option("tau.window").getDouble() * Unit.hour;
-				setTau(tauTable.getTau(getMJD()));
+				double window = hasOption("tau.window") ? option("tau.window").getDouble() * Unit.hour : tauTable.timeWindow;
+				setTau(tauTable.getTau(getMJD(), window));
 			}
 			catch(ArrayIndexOutOfBoundsException ie) { 
 			    if(!Double.isNaN(pwv)) {
@@ -174,10 +181,22 @@ public class APEXSubscan<FrameType extends APEXFrame> extends GroundBasedIntegra
     }
     */
 	
-	void readData(Fits fits) throws Exception {
-        readData((BinaryTableHDU) fits.getHDU(1));
-        fits.close();
-    }
+	void readData(Fits fits, File file) throws Exception {
+	    final BinaryTableHDU hdu = (BinaryTableHDU) fits.getHDU(1);
+	    
+	    // Decode uncompressed data directly from the memory-mapped file...
+	    if(file.getName().endsWith(".fits")) {
+	        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) { 
+	            new MappedDataTable(hdu, channel).read();
+	            fits.close();
+	            return;
+	        }
+	        catch(FitsException e) { debug("Cannot map " + file.getName() + ": " + e.getMessage()); }
+	    }
+	    
+	    readData(hdu);
+	    fits.close();
+	}
     
 
 	void readData(BinaryTableHDU hdu) throws Exception { 
@@ -194,11 +213,7 @@ public class APEXSubscan<FrameType extends APEXFrame> extends GroundBasedIntegra
 	        int iData = hdu.findColumn("DATA");
 	        channels = table.getSizes()[iData];
 	        
-	        APEXInstrument<? extends Channel> instrument = getInstrument();
-	        
-	        instrument.populate(channels);
-	        if(instrument.getLayout() != null) instrument.getLayout().assignChannels();
-	        instrument.validate();
+	        setChannels(channels);
 	        
 	        data = (float[]) table.getColumn(iData);
 	    }
@@ -214,6 +229,40 @@ public class APEXSubscan<FrameType extends APEXFrame> extends GroundBasedIntegra
 	        };
 	    }
 	}
+	
+	private class MappedDataTable extends HDUBlockReader {
+	    private int iData;
+	    private int channels;
+	    
+	    MappedDataTable(BinaryTableHDU hdu, FileChannel channel) throws FitsException {
+	        super(hdu, channel);
+	        
+	        iData = hdu.findColumn("DATA");
+	        if(iData < 0) throw new FitsException("Missing DATA column.");
+	        channels = getElements(iData);
+	        
+	        setChannels(channels);
+	    }
+	    
+	    @Override
+	    public Reader getReader() {
+	        return new Reader() {
+	            @Override
+	            public void processRow(int t, TableRow row) {
+	                final APEXFrame exposure = get(t);
+	                if(exposure != null) exposure.parse(row, iData, channels);          
+	            }
+	        };
+	    }
+	}
+	
+	private void setChannels(int channels) {
+	    APEXInstrument<? extends Channel> instrument = getInstrument();
+	    
+	    instrument.populate(channels);
+	    if(instrument.getLayout() != null) instrument.getLayout().assignChannels();
+	    instrument.validate();
+	}
 
 	/*
 	void writeData(String fromName, String toName) throws IOException, FitsException {
@@ -291,7 +340,7 @@ public class APEXSubscan<FrameType extends APEXFrame> extends GroundBasedIntegra
                 
                 for(int i=objX.length; --i >= 0; ) if(!Double.isNaN(objX[i])) if(objX[i] > m900) {
                     info("Non-sidereal tracking detected...");
-                    getScan().isNonSidereal = true;
+                    isNonSidereal = true;
                     break;
                 }
             }
@@ -379,7 +428,7 @@ public class APEXSubscan<FrameType extends APEXFrame> extends GroundBasedIntegra
 					exposure.MJD = MJD[t];
 					exposure.LST = LST[t];
 					
-					boolean hasObjectCoords = objX == null ? false : getScan().isNonSidereal && objX[t] > m900 && objY[t] > m900;
+					boolean hasObjectCoords = objX == null ? false : isNonSidereal && objX[t] > m900 && objY[t] > m900;
 					
 					if(basisCoords != null) {
 						basisCoords.set(X[t] * Unit.deg, Y[t] * Unit.deg);
@@ -26,19 +26,15 @@ import java.io.*;
 import java.util.*;
 
 import crush.CRUSH;
+import crush.telescope.TimeSeriesIndex;
 import jnum.Unit;
 import jnum.Util;
-import jnum.data.DataPoint;
-import jnum.data.ScalarLocality;
 import jnum.io.LineParser;
 import jnum.text.SmartTokenizer;
-import jnum.data.LocalAverage;
-import jnum.data.Locality;
-import jnum.data.LocalizedData;
 
 
 
-public class APEXTauTable extends LocalAverage<APEXTauTable.Entry> {
+public class APEXTauTable extends TimeSeriesIndex {
 	/**
 	 * 
 	 */
@@ -60,89 +56,49 @@ public class APEXTauTable extends LocalAverage<APEXTauTable.Entry> {
             @Override
             protected boolean parse(String line) throws Exception {
                 SmartTokenizer tokens = new SmartTokenizer(line);
-                Entry skydip = new Entry();
                 tokens.skip(2);
-                skydip.timeStamp = new TimeStamp(tokens.nextDouble());
-                skydip.tau.setValue(tokens.nextDouble());
-                skydip.tau.setRMS(1.0);
-                add(skydip);
+                double MJD = tokens.nextDouble();
+                add(MJD, tokens.nextDouble(), 1.0);
                 return true;
             }   
 		}.read(fileName);
 		
+		index();
+		
 		this.fileName = fileName;
 		
 		CRUSH.info(this, "[Loading tau data] -- " + size() + " values parsed.");
 	}	
 	
 	public double getTau(double MJD) {
-		Entry mean = getLocalAverage(new TimeStamp(MJD));
+		return getTau(MJD, timeWindow);
+	}
+	
+	public double getTau(double MJD, double timeWindow) {
+		Average mean = getAverage(MJD, timeWindow);
 		
-		if(mean.tau.weight() == 0.0) {
+		if(mean.weight() == 0.0) {
 			CRUSH.info(this, "... No skydip data was found in specified time window.");
 			
 			if(timeWindow < 6.0 * Unit.hour) {
 				CRUSH.info(this, "... expanding tau lookup window to 6 hours.");
-				timeWindow = 6.0 * Unit.hour;
-				mean = getLocalAverage(new TimeStamp(MJD));
+				mean = getAverage(MJD, 6.0 * Unit.hour);
 			}
 			else {
 				CRUSH.warning(this, "Local tau is unknown.");
 				return 0.0;
 			}
 		}
-		else if(Double.isInfinite(mean.tau.value())) {
+		else if(Double.isInfinite(mean.value())) {
 			CRUSH.warning(this, "Inifinite local tau.");
 			return 0.0;
 		}
 		
-		CRUSH.values(this, "Local average tau = " + Util.f3.format(mean.tau.value()) + " (from " + mean.measurements + " skydips)");
-		return mean.tau.value();
-	}
-	
-	class TimeStamp extends ScalarLocality {
-		
-		public TimeStamp(double MJD) { super(MJD); }
-		
-		@Override
-		public double distanceTo(Locality other) {
-			return super.distanceTo(other) * Unit.day / Math.abs(timeWindow);
-		}
-	}
-
-	
-	class Entry extends LocalizedData {
-		/**
-		 * 
-		 */
-		private static final long serialVersionUID = 3293214668641028650L;
-		TimeStamp timeStamp;
-		DataPoint tau = new DataPoint();
-		
-		
-		@Override
-		public Locality getLocality() {
-			return timeStamp;
-		}
-
-		@Override
-		public void setLocality(Locality loc) {
-			timeStamp = (TimeStamp) loc;
-		}
-
-		@Override
-		protected void averageWidth(LocalizedData other, Object env, double relativeWeight) {
-			Entry entry = (Entry) other;
-			tau.average(entry.tau.value(), relativeWeight * entry.tau.weight());
-		}	
-	}
-
-	@Override
-	public Entry getLocalizedDataInstance() {
-		return new Entry();
+		CRUSH.values(this, "Local average tau = " + Util.f3.format(mean.value()) + " (from " + mean.measurements + " skydips)");
+		return mean.value();
 	}
 	
-	public static APEXTauTable get(String fileName) throws IOException {
+	public static synchronized APEXTauTable get(String fileName) throws IOException {
 	    APEXTauTable table = tables.get(fileName);
 	    if(table == null) {
 	        table = new APEXTauTable(fileName);
@@ -152,4 +108,3 @@ public class APEXTauTable extends LocalAverage<APEXTauTable.Entry> {
 	}
 
 }
-
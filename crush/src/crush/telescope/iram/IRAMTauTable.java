@@ -27,18 +27,14 @@ import java.text.*;
 import java.util.*;
 
 import crush.CRUSH;
+import crush.telescope.TimeSeriesIndex;
 import jnum.Unit;
 import jnum.Util;
 import jnum.astro.AstroTime;
-import jnum.data.DataPoint;
-import jnum.data.ScalarLocality;
 import jnum.io.LineParser;
 import jnum.text.SmartTokenizer;
-import jnum.data.LocalAverage;
-import jnum.data.Locality;
-import jnum.data.LocalizedData;
 
-public class IRAMTauTable extends LocalAverage<IRAMTauTable.Entry> {
+public class IRAMTauTable extends TimeSeriesIndex {
 	
 	/**
 	 * 
@@ -51,7 +47,7 @@ public class IRAMTauTable extends LocalAverage<IRAMTauTable.Entry> {
 	
 	private static Hashtable<String, IRAMTauTable> tables = new Hashtable<>();
 
-	public static IRAMTauTable get(String fileName, String timeZone) throws IOException {
+	public static synchronized IRAMTauTable get(String fileName, String timeZone) throws IOException {
 		IRAMTauTable table = tables.get(fileName);
 		if(table == null) {
 			table = new IRAMTauTable(fileName, timeZone);
@@ -79,14 +75,13 @@ public class IRAMTauTable extends LocalAverage<IRAMTauTable.Entry> {
                 SmartTokenizer tokens = new SmartTokenizer(line);     
                 if(tokens.countTokens() < 4) return false;
                 
-                Entry skydip = new Entry();
                 String dateSpec = tokens.nextToken() + " " + tokens.nextToken();
                 Date date = df.parse(dateSpec);
-                skydip.timeStamp = new TimeStamp(AstroTime.getMJD(date.getTime()));         
+                double MJD = AstroTime.getMJD(date.getTime());         
                 
-                skydip.tau.setValue(tokens.nextDouble());    
-                skydip.tau.setRMS(tokens.nextDouble());
-                add(skydip);
+                double tau = tokens.nextDouble();    
+                double rms = tokens.nextDouble();
+                add(MJD, tau, 1.0 / (rms * rms));
                 return true;
             }
         }.read(fileName);
@@ -96,72 +91,24 @@ public class IRAMTauTable extends LocalAverage<IRAMTauTable.Entry> {
 		
 		this.fileName = fileName;
 		
-		Collections.sort(this);
+		index();
 		
 	}
 	
 	public double getTau(double MJD) {
-		Entry mean = getCheckedLocalAverage(new TimeStamp(MJD));
-		CRUSH.values(this, "Local average tau(225GHz) = " + mean.tau.toString(Util.f3) + " (from " + mean.measurements + " measurements)");
-		return mean.tau.value();
+		return getTau(MJD, timeWindow);
 	}
 	
-	
-	class TimeStamp extends ScalarLocality {
-		
-		public TimeStamp(double MJD) { super(MJD); }
+	public double getTau(double MJD, double timeWindow) {
+		Average mean = getCheckedAverage(MJD, timeWindow, 5.0);
 		
-		@Override
-		public double distanceTo(Locality other) {
-			return super.distanceTo(other) * Unit.day / Math.abs(timeWindow);
-		}
-	}
-
-	class Entry extends LocalizedData {
-		/**
-		 * 
-		 */
-		private static final long serialVersionUID = -7635791450826001376L;
-		TimeStamp timeStamp;
-		DataPoint tau = new DataPoint();
-		
-		@Override
-		public Locality getLocality() {
-			return timeStamp;
-		}
-
-		@Override
-		public void setLocality(Locality loc) {
-			timeStamp = (TimeStamp) loc;
-		}
-
-		@Override
-		protected void averageWidth(LocalizedData other, Object env, double relativeWeight) {	
-			Entry point = (Entry) other;	
-			tau.average(point.tau.value(), relativeWeight * point.tau.weight());
-		}
-
-		@Override
-		public boolean isConsistentWith(LocalizedData other) {
-			Entry entry = (Entry) other;
-			DataPoint difference = entry.tau.copy();
-			difference.subtract(tau);	
-			return Math.abs(difference.significance()) < 5.0;
-		}
-		
-		@Override
-		public String toString() { 
-			return timeStamp.toString() + ": " + tau;
+		if(mean.weight() == 0.0) {
+			CRUSH.warning(this, "No skydip data near the scan. Local tau is unknown.");
+			return Double.NaN;
 		}
 		
+		CRUSH.values(this, "Local average tau(225GHz) = " + mean.toString(Util.f3) + " (from " + mean.measurements + " measurements)");
+		return mean.value();
 	}
-
-	@Override
-	public Entry getLocalizedDataInstance() {
-		return new Entry();
-	}
-
 	
 }
-
-
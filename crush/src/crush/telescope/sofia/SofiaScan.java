@@ -24,6 +24,7 @@
 package crush.telescope.sofia;
 
 import crush.*;
+import crush.fits.ParallelGZIPInputStream;
 import crush.telescope.GroundBasedScan;
 import jnum.Constant;
 import jnum.Unit;
@@ -76,6 +77,7 @@ extends GroundBasedScan<IntegrationType> implements Weather {
     public SofiaScanningData scanning;
 
     public Fits fits;
+    public File fitsFile;
     
 
     
@@ -105,7 +107,8 @@ extends GroundBasedScan<IntegrationType> implements Weather {
         try { fits.close(); }
         catch(IOException e) {}
         fits = null;
-        System.gc();
+        fitsFile = null;
+        CRUSH.collectGarbage();
     }
 
     public File getFile(String scanDescriptor) throws FileNotFoundException { 
@@ -452,11 +455,19 @@ extends GroundBasedScan<IntegrationType> implements Weather {
     }	
 
 
+    @Override
+    public File getDataFile(String descriptor) {
+        try { return getFile(descriptor); }
+        catch(FileNotFoundException e) { return null; }
+    }
+
     public Fits getFits(String scanDescriptor) throws FileNotFoundException, FitsException {
         File file = getFile(scanDescriptor);
         boolean isCompressed = file.getName().endsWith(".gz");
         info("Reading " + file.getPath() + "...");
-        return new Fits(getFile(scanDescriptor), isCompressed);
+        fitsFile = file;
+        if(isCompressed) return new Fits(new ParallelGZIPInputStream(file));
+        return new Fits(file);
     }
 
 